@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+import android.widget.ImageView;
+
+import com.facebook.android.friendsmash.image.AvatarLoader;
+import com.facebook.android.friendsmash.image.IoScheduler;
+
+/**
+ *  Shows the profile picture of a user, loaded through the app's AvatarLoader, so that every
+ *  screen showing the same user shares one picture and one download of it.  Until the picture
+ *  is loaded the view shows its placeholder, the drawable it was inflated with, if any.  Loading
+ *  stops while the view is detached, so pictures for screens that have gone aren't loaded
+ */
+public class AvatarView extends ImageView implements AvatarLoader.Callback {
+
+	private final Drawable placeholder;
+
+	private String profileId = null;
+	private boolean loaded = false;
+	// Whether the AvatarLoader will call back with the picture
+	private boolean loading = false;
+
+	public AvatarView(Context context) {
+		this(context, null);
+	}
+
+	public AvatarView(Context context, AttributeSet attrs) {
+		super(context, attrs);
+		placeholder = getDrawable();
+		setScaleType(ScaleType.CENTER_CROP);
+	}
+
+	private AvatarLoader getAvatarLoader() {
+		return ((FriendSmashApplication) getContext().getApplicationContext()).getAvatarLoader();
+	}
+
+	public String getProfileId() {
+		return profileId;
+	}
+
+	public void setProfileId(String profileId) {
+		if (profileId == null ? this.profileId == null : profileId.equals(this.profileId)) {
+			return;
+		}
+
+		cancelLoad();
+		this.profileId = profileId;
+		loaded = false;
+		setImageDrawable(placeholder);
+
+		if (profileId != null) {
+			load();
+		}
+	}
+
+	private void load() {
+		Bitmap bitmap = getAvatarLoader().load(profileId, IoScheduler.Priority.VISIBLE, this);
+		if (bitmap != null) {
+			loaded = true;
+			setImageBitmap(bitmap);
+		} else {
+			loading = true;
+		}
+	}
+
+	private void cancelLoad() {
+		if (loading) {
+			getAvatarLoader().cancel(profileId, this);
+			loading = false;
+		}
+	}
+
+	@Override
+	public void onAvatarLoaded(String userId, Bitmap bitmap) {
+		loading = false;
+		loaded = true;
+		if (bitmap != null) {
+			setImageBitmap(bitmap);
+		}
+	}
+
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		if (profileId != null && !loaded && !loading) {
+			load();
+		}
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		cancelLoad();
+	}
+}
@@ -59,9 +59,17 @@ public class FBLoggedOutHomeFragment extends Fragment {
 		getHomeActivity().getFacebookLogin().setUpLoginButton(loginButton);
 		loginButton.setFragment(this);
 
+		((FriendSmashApplication) getActivity().getApplication()).getScreenImages().apply(v);
+
 		return v;
 	}
 
+	@Override
+	public void onDestroyView() {
+		super.onDestroyView();
+		((FriendSmashApplication) getActivity().getApplication()).getScreenImages().release();
+	}
+
 	@Override
 	public void onActivityResult(int requestCode, int resultCode, Intent data) {
 		super.onActivityResult(requestCode, resultCode, data);
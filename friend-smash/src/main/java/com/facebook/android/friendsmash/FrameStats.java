@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash;
+
+import android.os.Bundle;
+
+/**
+ *  Frame timing of a single game: a histogram of the time between consecutive frames of the
+ *  GameLoop, how many frames were janky and the worst stalls, each tagged with the number of
+ *  sprites in flight at the time.  Frame times come from the GameLoop, so on Jelly Bean and above
+ *  they're the Choreographer's vsync times.  Passed back to HomeFragment as a Bundle at the end
+ *  of the game
+ */
+public class FrameStats {
+
+	// Upper bounds (inclusive, in ms) of the histogram buckets; the last bucket is for anything longer
+	static final long[] FRAME_TIME_BUCKETS = {17, 25, 34, 50, 67, 100, 250};
+
+	// A frame that took longer than this missed at least one vsync at 60fps
+	static final long JANK_THRESHOLD = 25;
+
+	// Frames are also counted by sprites in flight, in buckets of this many sprites
+	static final int SPRITE_COUNT_BUCKET_SIZE = 5;
+	static final int NUM_SPRITE_COUNT_BUCKETS = 6;
+
+	static final int NUM_WORST_STALLS = 3;
+
+	private static final String FRAMES_KEY = "frames";
+	private static final String JANKY_FRAMES_KEY = "janky_frames";
+	private static final String TOTAL_FRAME_TIME_KEY = "total_frame_time";
+	private static final String HISTOGRAM_KEY = "histogram";
+	private static final String FRAMES_BY_SPRITE_COUNT_KEY = "frames_by_sprite_count";
+	private static final String JANKY_FRAMES_BY_SPRITE_COUNT_KEY = "janky_frames_by_sprite_count";
+	private static final String WORST_STALLS_KEY = "worst_stalls";
+	private static final String WORST_STALL_SPRITE_COUNTS_KEY = "worst_stall_sprite_counts";
+
+	private int frames = 0;
+	private int jankyFrames = 0;
+	private long totalFrameTime = 0;
+	private int[] histogram = new int[FRAME_TIME_BUCKETS.length + 1];
+	private int[] framesBySpriteCount = new int[NUM_SPRITE_COUNT_BUCKETS];
+	private int[] jankyFramesBySpriteCount = new int[NUM_SPRITE_COUNT_BUCKETS];
+
+	// Longest frames first
+	private long[] worstStalls = new long[NUM_WORST_STALLS];
+	private int[] worstStallSpriteCounts = new int[NUM_WORST_STALLS];
+
+	// Time of the previous frame, or -1 if the next frame is the first since starting or pausing
+	private long lastFrameTime = -1;
+
+	/**
+	 *  Records a frame of the GameLoop, along with the number of sprites in flight
+	 */
+	public void onFrame(long frameTime, int spriteCount) {
+		if (lastFrameTime < 0) {
+			lastFrameTime = frameTime;
+			return;
+		}
+
+		long frameDuration = frameTime - lastFrameTime;
+		lastFrameTime = frameTime;
+
+		frames++;
+		totalFrameTime += frameDuration;
+
+		int bucket = 0;
+		while (bucket < FRAME_TIME_BUCKETS.length && frameDuration > FRAME_TIME_BUCKETS[bucket]) {
+			bucket++;
+		}
+		histogram[bucket]++;
+
+		int spriteCountBucket = Math.min(spriteCount / SPRITE_COUNT_BUCKET_SIZE, NUM_SPRITE_COUNT_BUCKETS - 1);
+		framesBySpriteCount[spriteCountBucket]++;
+		if (frameDuration > JANK_THRESHOLD) {
+			jankyFrames++;
+			jankyFramesBySpriteCount[spriteCountBucket]++;
+		}
+
+		for (int i = 0; i < NUM_WORST_STALLS; i++) {
+			if (frameDuration > worstStalls[i]) {
+				System.arraycopy(worstStalls, i, worstStalls, i + 1, NUM_WORST_STALLS - i - 1);
+				System.arraycopy(worstStallSpriteCounts, i, worstStallSpriteCounts, i + 1, NUM_WORST_STALLS - i - 1);
+				worstStalls[i] = frameDuration;
+				worstStallSpriteCounts[i] = spriteCount;
+				break;
+			}
+		}
+	}
+
+	/**
+	 *  Called when the GameLoop stops, so the time until it starts again isn't counted as a frame
+	 */
+	public void pause() {
+		lastFrameTime = -1;
+	}
+
+	public int getFrames() {
+		return frames;
+	}
+
+	public int getJankyFrames() {
+		return jankyFrames;
+	}
+
+	public long getAverageFrameTime() {
+		return frames > 0 ? totalFrameTime / frames : 0;
+	}
+
+	public long getWorstStall() {
+		return worstStalls[0];
+	}
+
+	public int getWorstStallSpriteCount() {
+		return worstStallSpriteCounts[0];
+	}
+
+	/**
+	 *  Frame counts per bucket of FRAME_TIME_BUCKETS, comma separated
+	 */
+	public String getHistogramString() {
+		return join(histogram);
+	}
+
+	/**
+	 *  Janky frames out of all frames, for every bucket of SPRITE_COUNT_BUCKET_SIZE sprites in
+	 *  flight, e.g. "0/120,3/240,..."
+	 */
+	public String getJankBySpriteCountString() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < NUM_SPRITE_COUNT_BUCKETS; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+			builder.append(jankyFramesBySpriteCount[i]).append('/').append(framesBySpriteCount[i]);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 *  Human readable summary, for the game over screen in debug builds
+	 */
+	public String getSummary() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(frames).append(" frames, ").append(jankyFrames).append(" janky, avg ")
+				.append(getAverageFrameTime()).append("ms\n");
+		builder.append("Worst:");
+		for (int i = 0; i < NUM_WORST_STALLS && worstStalls[i] > 0; i++) {
+			builder.append(' ').append(worstStalls[i]).append("ms (").append(worstStallSpriteCounts[i]).append(" sprites)");
+		}
+		builder.append('\n');
+		builder.append("Histogram (<=");
+		for (int i = 0; i < FRAME_TIME_BUCKETS.length; i++) {
+			builder.append(i > 0 ? "," : "").append(FRAME_TIME_BUCKETS[i]);
+		}
+		builder.append(",more ms): ").append(getHistogramString()).append('\n');
+		builder.append("Jank per ").append(SPRITE_COUNT_BUCKET_SIZE).append(" sprites: ").append(getJankBySpriteCountString());
+		return builder.toString();
+	}
+
+	public Bundle toBundle() {
+		Bundle bundle = new Bundle();
+		bundle.putInt(FRAMES_KEY, frames);
+		bundle.putInt(JANKY_FRAMES_KEY, jankyFrames);
+		bundle.putLong(TOTAL_FRAME_TIME_KEY, totalFrameTime);
+		bundle.putIntArray(HISTOGRAM_KEY, histogram);
+		bundle.putIntArray(FRAMES_BY_SPRITE_COUNT_KEY, framesBySpriteCount);
+		bundle.putIntArray(JANKY_FRAMES_BY_SPRITE_COUNT_KEY, jankyFramesBySpriteCount);
+		bundle.putLongArray(WORST_STALLS_KEY, worstStalls);
+		bundle.putIntArray(WORST_STALL_SPRITE_COUNTS_KEY, worstStallSpriteCounts);
+		return bundle;
+	}
+
+	public static FrameStats fromBundle(Bundle bundle) {
+		FrameStats frameStats = new FrameStats();
+		frameStats.frames = bundle.getInt(FRAMES_KEY);
+		frameStats.jankyFrames = bundle.getInt(JANKY_FRAMES_KEY);
+		frameStats.totalFrameTime = bundle.getLong(TOTAL_FRAME_TIME_KEY);
+		frameStats.histogram = copyOf(bundle.getIntArray(HISTOGRAM_KEY), frameStats.histogram);
+		frameStats.framesBySpriteCount = copyOf(bundle.getIntArray(FRAMES_BY_SPRITE_COUNT_KEY), frameStats.framesBySpriteCount);
+		frameStats.jankyFramesBySpriteCount = copyOf(bundle.getIntArray(JANKY_FRAMES_BY_SPRITE_COUNT_KEY), frameStats.jankyFramesBySpriteCount);
+		frameStats.worstStallSpriteCounts = copyOf(bundle.getIntArray(WORST_STALL_SPRITE_COUNTS_KEY), frameStats.worstStallSpriteCounts);
+		long[] worstStalls = bundle.getLongArray(WORST_STALLS_KEY);
+		if (worstStalls != null && worstStalls.length == frameStats.worstStalls.length) {
+			frameStats.worstStalls = worstStalls;
+		}
+		return frameStats;
+	}
+
+	private static int[] copyOf(int[] values, int[] defaultValues) {
+		return values != null && values.length == defaultValues.length ? values : defaultValues;
+	}
+
+	private static String join(int[] values) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				builder.append(',');
+			}
+			builder.append(values[i]);
+		}
+		return builder.toString();
+	}
+}
@@ -20,10 +20,22 @@
 
 package com.facebook.android.friendsmash;
 
+import android.app.Activity;
 import android.app.Application;
 import android.content.SharedPreferences;
+import android.os.Bundle;
 
 import com.facebook.FacebookSdk;
+import com.facebook.android.friendsmash.http.HttpTransport;
+import com.facebook.android.friendsmash.http.UrlConnectionTransport;
+import com.facebook.android.friendsmash.image.AvatarCache;
+import com.facebook.android.friendsmash.image.AvatarLoader;
+import com.facebook.android.friendsmash.image.BitmapBudget;
+import com.facebook.android.friendsmash.image.BitmapDecoder;
+import com.facebook.android.friendsmash.image.BitmapPool;
+import com.facebook.android.friendsmash.image.ImageMetrics;
+import com.facebook.android.friendsmash.image.IoScheduler;
+import com.facebook.android.friendsmash.image.PictureUrlResolver;
 import com.parse.Parse;
 import com.parse.ParseFacebookUtils;
 import com.parse.ParseUser;
@@ -31,6 +43,7 @@ import com.parse.ParseUser;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 
 public class FriendSmashApplication extends Application {
@@ -42,6 +55,9 @@ public class FriendSmashApplication extends Application {
 	public static int NEW_USER_COINS = 100;
 	public static int NUM_BOMBS_ALLOWED_IN_GAME = 3;
 	public static int NUM_COINS_PER_BOMB = 5;
+
+	// Draw all the flying targets on one SpriteTextureView rather than one UserImageView each
+	public static boolean RENDER_SPRITES_ON_SINGLE_SURFACE = true;
 	private int score = 0;
 	private int bombs = 0;
 	private int coins = 0;
@@ -65,6 +81,57 @@ public class FriendSmashApplication extends Application {
 	private boolean hasDeniedFriendPermission = false;
 
 	private ArrayList<ScoreboardEntry> scoreboardEntriesList = null;
+
+	private FrameStats lastFrameStats = null;
+
+	private SpriteAtlas spriteAtlas = null;
+
+	private AvatarCache avatarCache = null;
+
+	private PictureUrlResolver pictureUrlResolver = null;
+
+	private HttpTransport httpTransport = null;
+
+	private AvatarLoader avatarLoader = null;
+
+	// Downloads are mostly spent waiting on the network, so a few can run at once
+	private static final int MAX_IO_THREADS = 4;
+
+	private IoScheduler ioScheduler = null;
+
+	private TargetPrefetcher targetPrefetcher = null;
+
+	// Share of the heap the bitmaps kept for reuse may use
+	private static final int BITMAP_POOL_HEAP_FRACTION = 16;
+
+	private BitmapDecoder bitmapDecoder = null;
+
+	private final ImageMetrics imageMetrics = new ImageMetrics();
+
+	private BitmapBudget bitmapBudget;
+
+	// The game's own images are decoded again for the next game if they're let go of
+	private final BitmapBudget.Owner spriteAtlasOwner = new BitmapBudget.Owner() {
+		@Override
+		public String getName() {
+			return "sprite atlas";
+		}
+
+		@Override
+		public int getBitmapBytes() {
+			return spriteAtlas != null ? spriteAtlas.getByteCount() : 0;
+		}
+
+		@Override
+		public void trimToSize(int bytes) {
+			// A game in progress holds on to its own reference
+			if (spriteAtlas != null && spriteAtlas.getByteCount() > bytes) {
+				spriteAtlas = null;
+			}
+		}
+	};
+
+	private ScreenImages screenImages = null;
 	
 	public int getScore() {
 		return score;
@@ -184,6 +251,130 @@ public class FriendSmashApplication extends Application {
 		this.scoreboardEntriesList = scoreboardEntriesList;
 	}
 
+	public FrameStats getLastFrameStats() {
+		return lastFrameStats;
+	}
+
+	public void setLastFrameStats(FrameStats lastFrameStats) {
+		this.lastFrameStats = lastFrameStats;
+	}
+
+	/**
+	 *  Returns the images of the game, decoding them the first time a game is started
+	 */
+	public SpriteAtlas getSpriteAtlas() {
+		// Read once, as trimming the bitmap budget can let go of it
+		SpriteAtlas currentSpriteAtlas = spriteAtlas;
+		if (currentSpriteAtlas == null) {
+			currentSpriteAtlas = new SpriteAtlas(getResources(), getResources().getDimensionPixelSize(R.dimen.icon_width));
+			spriteAtlas = currentSpriteAtlas;
+			bitmapBudget.onBitmapsAdded();
+		}
+		return currentSpriteAtlas;
+	}
+
+	/**
+	 *  Returns the cache of the profile pictures shown in the game
+	 */
+	public AvatarCache getAvatarCache() {
+		if (avatarCache == null) {
+			avatarCache = new AvatarCache(this, getBitmapDecoder(), imageMetrics, bitmapBudget);
+		}
+		return avatarCache;
+	}
+
+	public synchronized PictureUrlResolver getPictureUrlResolver() {
+		if (pictureUrlResolver == null) {
+			pictureUrlResolver = new PictureUrlResolver(getHttpTransport(), PictureUrlResolver.GRAPH_URL,
+					getBitmapDecoder(), imageMetrics);
+		}
+		return pictureUrlResolver;
+	}
+
+	/**
+	 *  Returns what the app's own HTTP requests, those not made by the Facebook SDK, are made with
+	 */
+	public synchronized HttpTransport getHttpTransport() {
+		if (httpTransport == null) {
+			httpTransport = new UrlConnectionTransport(this);
+		}
+		return httpTransport;
+	}
+
+	/**
+	 *  Replaces the transport of the app's own HTTP requests, those already running excepted
+	 */
+	public synchronized void setHttpTransport(HttpTransport httpTransport) {
+		this.httpTransport = httpTransport;
+		if (pictureUrlResolver != null) {
+			pictureUrlResolver.setHttpTransport(httpTransport);
+		}
+	}
+
+	/**
+	 *  Returns the loader of the profile pictures shown anywhere in the app, at the size of the
+	 *  images in the game
+	 */
+	public AvatarLoader getAvatarLoader() {
+		if (avatarLoader == null) {
+			avatarLoader = new AvatarLoader(getAvatarCache(), getPictureUrlResolver(), getIoScheduler(),
+					getResources().getDimensionPixelSize(R.dimen.icon_width));
+		}
+		return avatarLoader;
+	}
+
+	/**
+	 *  Returns the scheduler the app's disk and network loads are run on
+	 */
+	public IoScheduler getIoScheduler() {
+		if (ioScheduler == null) {
+			ioScheduler = new IoScheduler(MAX_IO_THREADS);
+		}
+		return ioScheduler;
+	}
+
+	/**
+	 *  Returns who the next game will have the user smash, worked out ahead of the game
+	 */
+	public TargetPrefetcher getTargetPrefetcher() {
+		if (targetPrefetcher == null) {
+			targetPrefetcher = new TargetPrefetcher(getAvatarLoader());
+		}
+		return targetPrefetcher;
+	}
+
+	/**
+	 *  Returns the decoder every downloaded or cached image goes through, which reuses the bitmaps
+	 *  in its BitmapPool
+	 */
+	public synchronized BitmapDecoder getBitmapDecoder() {
+		if (bitmapDecoder == null) {
+			int maxPoolSize = (int) (Runtime.getRuntime().maxMemory() / BITMAP_POOL_HEAP_FRACTION);
+			bitmapDecoder = new BitmapDecoder(new BitmapPool(maxPoolSize), imageMetrics);
+		}
+		return bitmapDecoder;
+	}
+
+	/**
+	 *  Returns the background and title banner shared by every screen
+	 */
+	public ScreenImages getScreenImages() {
+		if (screenImages == null) {
+			screenImages = new ScreenImages(getResources(), getBitmapDecoder(), bitmapBudget);
+		}
+		return screenImages;
+	}
+
+	/**
+	 *  Writes out what loading images has cost so far, and the bytes of bitmaps the app is holding
+	 *  on to, for HomeActivity's dump and the debug dialog of HomeFragment
+	 */
+	public void dumpImageMetrics(PrintWriter writer, String prefix) {
+		imageMetrics.dump(writer, prefix);
+		bitmapBudget.dump(writer, prefix);
+		writer.println(prefix + "I/O queues: " + getIoScheduler().getSummary());
+	}
+
 	public String getFBAppID() {
 		return getString(R.string.facebook_app_id);
 	}
@@ -227,6 +418,57 @@ public class FriendSmashApplication extends Application {
 		ParseFacebookUtils.initialize(this);
         FacebookSdk.sdkInitialize(this.getApplicationContext());
         loadInventory();
+
+		// Owners give up their bitmaps in this order, cheapest to get back first
+		bitmapBudget = new BitmapBudget(this);
+		bitmapBudget.addOwner(getBitmapDecoder().getBitmapPool());
+		bitmapBudget.addOwner(getAvatarCache());
+		bitmapBudget.addOwner(spriteAtlasOwner);
+		bitmapBudget.addOwner(getScreenImages());
+
+		registerActivityLifecycleCallbacks(new ActivityLifecycleCallbacks() {
+			@Override
+			public void onActivityResumed(Activity activity) {
+				// Back in the foreground, so the budget trimmed while in the background is over
+				bitmapBudget.restore();
+			}
+
+			@Override
+			public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+			}
+
+			@Override
+			public void onActivityStarted(Activity activity) {
+			}
+
+			@Override
+			public void onActivityPaused(Activity activity) {
+			}
+
+			@Override
+			public void onActivityStopped(Activity activity) {
+			}
+
+			@Override
+			public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+			}
+
+			@Override
+			public void onActivityDestroyed(Activity activity) {
+			}
+		});
+	}
+
+	@Override
+	public void onTrimMemory(int level) {
+		super.onTrimMemory(level);
+		bitmapBudget.onTrimMemory(level);
+	}
+
+	@Override
+	public void onLowMemory() {
+		super.onLowMemory();
+		bitmapBudget.onTrimMemory(TRIM_MEMORY_COMPLETE);
 	}
 
 	
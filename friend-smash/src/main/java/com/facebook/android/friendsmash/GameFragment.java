@@ -20,21 +20,14 @@
 
 package com.facebook.android.friendsmash;
 
-import android.animation.Animator;
-import android.animation.Animator.AnimatorListener;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Point;
-import android.graphics.drawable.Drawable;
-import android.os.AsyncTask;
 import android.os.Bundle;
-import android.os.Handler;
+import android.os.SystemClock;
 import android.support.v4.app.Fragment;
 import android.util.Log;
-import android.util.Pair;
 import android.view.Display;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
@@ -48,70 +41,67 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import com.facebook.FacebookRequestError;
-import com.facebook.GraphResponse;
-import com.facebook.android.friendsmash.integration.GameRequest;
-import com.facebook.android.friendsmash.integration.GraphAPICall;
-import com.facebook.android.friendsmash.integration.GraphAPICallback;
+import com.facebook.android.friendsmash.game.GameSimulation;
+import com.facebook.android.friendsmash.game.Sprite;
+import com.facebook.android.friendsmash.image.AvatarLoader;
+import com.facebook.android.friendsmash.image.AvatarSprites;
+import com.facebook.android.friendsmash.image.IoScheduler;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.URL;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Random;
 
 /**
  *  Fragment shown once a user starts playing a game
  */
 public class GameFragment extends Fragment {
 	
-	private static final Pair [] CELEBS = {
-		Pair.create("Einstein", "drawable/nonfriend_1"),
-		Pair.create("Xzibit", "drawable/nonfriend_2"),
-		Pair.create("Goldsmith", "drawable/nonfriend_3"),
-		Pair.create("Sinatra", "drawable/nonfriend_4"),
-		Pair.create("George", "drawable/nonfriend_5"),
-		Pair.create("Jacko", "drawable/nonfriend_6"),
-		Pair.create("Rick", "drawable/nonfriend_7"),
-		Pair.create("Keanu", "drawable/nonfriend_8"),
-		Pair.create("Arnie", "drawable/nonfriend_9"),
-		Pair.create("Jean-Luc", "drawable/nonfriend_10"),
+	// Names of the celebrities, whose images are the first regions of the SpriteAtlas in the same order
+	private static final String [] CELEBS = {
+		"Einstein",
+		"Xzibit",
+		"Goldsmith",
+		"Sinatra",
+		"George",
+		"Jacko",
+		"Rick",
+		"Keanu",
+		"Arnie",
+		"Jean-Luc",
 	};
 
-    private static final int CELEB_FREQUENCY = 5;
-    private static final int COIN_FREQUENCY = 8;
+    // Number of targets created before the game starts, enough for a typical early game
+    private static final int INITIAL_GAME_TARGETS = 8;
 	
 	private static final String TAG = GameFragment.class.getSimpleName();
 	
     private FrameLayout gameFrame;
 	private FrameLayout progressContainer;
 	private TextView smashPlayerNameTextView;
-	private TextView scoreTextView;
-	private LinearLayout livesContainer;
-	private LinearLayout bombsContainer;
 	private ImageView bombButton;
+	private GameHud gameHud;
+	private SpriteTextureView spriteTextureView;
 
 	private int iconWidth;
 
 	private int screenWidth;
 	private int screenHeight;
-
-	// Handler for putting messages on Main UI thread from background threads periodically
-	private Handler timerHandler;
 	
-	// Handler for putting messages on Main UI thread from background thread after fetching images
-	private Handler uiHandler;
+	// Single per-frame tick that moves the game on and draws it
+	private GameLoop gameLoop;
+	
+	// The game rules, which this fragment only shows on the screen and passes the touches to
+	private GameSimulation simulation;
+	
+	// Every bundled image of the game, decoded up front
+	private SpriteAtlas spriteAtlas;
 	
-	// Runnable task used to produce images to fly across the screen
-	private Runnable fireImageTask = null;
+	// Frame timing of this game, passed back to HomeFragment once it's over
+	private final FrameStats frameStats = new FrameStats();
 	
 	private boolean imagesStartedFiring = false;
 	private boolean firstImagePendingFiring = false;
-	private boolean firstImageFired = false;
 	
 	private int friendToSmashIndex = -1;
 	private int celebToSmashIndex = -1;
@@ -119,36 +109,117 @@ public class GameFragment extends Fragment {
 
 	private String friendToSmashIDProvided = null;
 	private String friendToSmashFirstName = null;
-	private Bitmap friendToSmashBitmap;
+	private AvatarSprites friendToSmashSprites;
+
+	// The sprites of the friend to smash being made, if they are
+	private String friendToSmashSpritesLoadingID = null;
+	private AvatarLoader.SpritesCallback friendToSmashSpritesCallback = null;
+
+	private ArrayList<GameTarget> gameTargets = new ArrayList<GameTarget>();
+
+	private GameTargetPool gameTargetPool;
+
+	// Single input path for the whole game frame, instead of a listener on every UserImageView.
+	// Every finger that goes down smashes whatever it lands on, so several fingers can smash
+	// several images at once
+	private final OnTouchListener gameFrameTouchListener = new OnTouchListener() {
+		@Override
+		public boolean onTouch(View v, MotionEvent event) {
+			int action = event.getActionMasked();
+			if (action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_POINTER_DOWN) {
+				int pointerIndex = event.getActionIndex();
+				simulation.smashAt(event.getX(pointerIndex), event.getY(pointerIndex));
+			}
+			return true;
+		}
+	};
 
-	private int score = 0;
-	private int lives = 3;
-	private int bombsRemaining = FriendSmashApplication.NUM_BOMBS_ALLOWED_IN_GAME;
-	private int bombsUsed = 0;
-	private int coinsCollected = 0;
-	
-	private ArrayList<UserImageView> userImageViews = new ArrayList<UserImageView>();
+	private final GameSimulation.Listener simulationListener = new GameSimulation.Listener() {
+		@Override
+		public void onSpriteSpawned(Sprite sprite) {
+			showSprite(sprite);
+		}
+
+		@Override
+		public void onSpriteRemoved(Sprite sprite) {
+			hideAndRemove((GameTarget) sprite.getTag());
+		}
+
+		@Override
+		public void onWrongSpriteSmashed(Sprite sprite) {
+			GameTarget gameTarget = (GameTarget) sprite.getTag();
+			if (spriteTextureView != null) {
+				spriteTextureView.bringSpriteToFront((SpriteTarget) gameTarget);
+			} else {
+				getGameFrame().bringChildToFront((UserImageView) gameTarget);
+			}
+		}
+
+		@Override
+		public void onScoreChanged(int score) {
+			if (gameHud != null) {
+				gameHud.showScore(score);
+			}
+		}
+
+		@Override
+		public void onLivesChanged(int lives) {
+			if (gameHud != null) {
+				gameHud.showLives(lives);
+			}
+		}
+
+		@Override
+		public void onBombsRemainingChanged(int bombsRemaining) {
+			if (gameHud != null) {
+				gameHud.showBombsRemaining(bombsRemaining);
+			}
+		}
+
+		@Override
+		public void onGameOver() {
+			finishGame();
+		}
+	};
 	
 	@Override
 	public void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		setRetainInstance(true);
 		
-		timerHandler = new Handler();
-		uiHandler = new Handler();
+		spriteAtlas = ((FriendSmashApplication) getActivity().getApplication()).getSpriteAtlas();
+		gameLoop = new GameLoop(new GameLoop.Callback() {
+			@Override
+			public void onFrame(long frameTimeMillis) {
+				onGameFrame(frameTimeMillis);
+			}
+		});
+		
+		simulation = new GameSimulation(System.currentTimeMillis(), new GameSimulation.Clock() {
+			@Override
+			public long now() {
+				return SystemClock.uptimeMillis();
+			}
+		}, CELEBS.length, FriendSmashApplication.NUM_BOMBS_ALLOWED_IN_GAME);
+		simulation.setListener(simulationListener);
 		
 		// Make sure there are non-zero friends.
 		JSONArray friends = ((FriendSmashApplication) getActivity().getApplication()).getFriends();
 		if (friends != null && friends.length() > 0) {
 			isSocialMode = true;
-			friendToSmashIndex = getRandomFriendIndex();
+			// Usually picked while the home screen was idle, with their picture loaded already
+			friendToSmashIndex = ((FriendSmashApplication) getActivity().getApplication()).getTargetPrefetcher().takeNextFriendIndex(friends);
+			if (friendToSmashIndex == -1) {
+				friendToSmashIndex = simulation.chooseRandomIndex(friends.length());
+			}
 		} else {
 			isSocialMode = false;
-			celebToSmashIndex = getRandomCelebIndex();
+			celebToSmashIndex = simulation.chooseRandomIndex(CELEBS.length);
 
 			((FriendSmashApplication) getActivity().getApplication()).setLastFriendSmashedID(null);
-        	((FriendSmashApplication) getActivity().getApplication()).setLastFriendSmashedName(CELEBS[celebToSmashIndex].first.toString());
+        	((FriendSmashApplication) getActivity().getApplication()).setLastFriendSmashedName(CELEBS[celebToSmashIndex]);
 		}
+		simulation.setTarget(isSocialMode, celebToSmashIndex);
 	}
 	
 	@Override
@@ -159,19 +230,34 @@ public class GameFragment extends Fragment {
 		gameFrame = (FrameLayout)v.findViewById(R.id.gameFrame);
 		progressContainer = (FrameLayout)v.findViewById(R.id.progressContainer);
 		smashPlayerNameTextView = (TextView)v.findViewById(R.id.smashPlayerNameTextView);
-		scoreTextView = (TextView)v.findViewById(R.id.scoreTextView);
-		livesContainer = (LinearLayout)v.findViewById(R.id.livesContainer);
-		bombsContainer = (LinearLayout)v.findViewById(R.id.bombsContainer);
 		bombButton = (ImageView)v.findViewById(R.id.bombButton);
+		gameHud = new GameHud(getActivity(), spriteAtlas,
+				(LinearLayout)v.findViewById(R.id.livesContainer),
+				(LinearLayout)v.findViewById(R.id.bombsContainer),
+				(ScoreView)v.findViewById(R.id.scoreView),
+				bombButton, GameSimulation.NUM_LIVES, FriendSmashApplication.NUM_BOMBS_ALLOWED_IN_GAME);
 		bombButton.setOnTouchListener(new View.OnTouchListener() {
             @Override
 			public boolean onTouch(View v, MotionEvent event) {
-            	onBombButtonTouched();
-				return false;
+				// Keep the bomb's touches from reaching the images underneath
+				if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+					onBombButtonTouched();
+				}
+				return true;
 			}
         });
 		
 		progressContainer.setVisibility(View.INVISIBLE);
+
+		// The images don't handle touches themselves, so all touches other than the bomb button's end up here
+		gameFrame.setOnTouchListener(gameFrameTouchListener);
+
+		if (FriendSmashApplication.RENDER_SPRITES_ON_SINGLE_SURFACE) {
+			// Placed below the other views in the game frame, so the bomb button still receives touches
+			spriteTextureView = new SpriteTextureView(getActivity());
+			gameFrame.addView(spriteTextureView, 0, new FrameLayout.LayoutParams(
+					FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT));
+		}
 		
 		iconWidth = getResources().getDimensionPixelSize(R.dimen.icon_width);
 		
@@ -182,33 +268,49 @@ public class GameFragment extends Fragment {
         display.getSize(size);
         screenWidth = size.x;
         screenHeight = size.y;
+        simulation.setPlayfield(iconWidth, screenWidth, screenHeight);
 
-		fireImageTask = new Runnable()
-		{
-			public void run()
-			{
-				spawnImage(false);
+		gameTargetPool = new GameTargetPool(new GameTargetPool.Factory() {
+			@Override
+			public GameTarget createGameTarget() {
+				if (spriteTextureView != null) {
+					return new SpriteTarget(iconWidth);
+				}
+
+				UserImageView userImageView = new UserImageView(getActivity());
+				userImageView.setLayoutParams(new LinearLayout.LayoutParams(iconWidth, iconWidth));
+				return userImageView;
 			}
-		};
-		
-		setScore(getScore());
-		setLives(getLives());
-		setBombsRemaining(getBombsRemaining());
+		});
+		gameTargetPool.prefill(INITIAL_GAME_TARGETS);
+
+		gameHud.showScore(simulation.getScore());
+		gameHud.showLives(simulation.getLives());
+		gameHud.showBombsRemaining(simulation.getBombsRemaining());
+
+		((FriendSmashApplication) getActivity().getApplication()).getScreenImages().apply(v);
 		
 		return v;
 	}
+
+	@Override
+	public void onDestroyView() {
+		super.onDestroyView();
+		((FriendSmashApplication) getActivity().getApplication()).getScreenImages().release();
+	}
+
+	@Override
+	public void onDestroy() {
+		super.onDestroy();
+		if (friendToSmashSpritesCallback != null) {
+			((FriendSmashApplication) getActivity().getApplication()).getAvatarLoader().cancelSprites(
+					friendToSmashSpritesLoadingID, friendToSmashSpritesCallback);
+			friendToSmashSpritesCallback = null;
+		}
+	}
 	
 	private void onBombButtonTouched() {
-		if (getBombsRemaining() > 0) {
-			hideAllUserImageViews();
-			markAllUserImageViewsAsVoid();
-			
-			bombsUsed++;
-			
-			setBombsRemaining(getBombsRemaining() - 1);
-		} else {
-			setBombsRemaining(0);
-		}
+		simulation.detonateBomb();
 	}
 	
 	private void setSmashPlayerNameTextView() {
@@ -219,95 +321,55 @@ public class GameFragment extends Fragment {
         	}
         	smashPlayerNameTextView.setText("Smash " + friendToSmashFirstName + " !");
 		} else {
-			smashPlayerNameTextView.setText("Smash " + CELEBS[celebToSmashIndex].first + " !");
+			smashPlayerNameTextView.setText("Smash " + CELEBS[celebToSmashIndex] + " !");
 		}
 	}
 
-	private int getRandomFriendIndex() {
-		Random randomGenerator = new Random(System.currentTimeMillis());
-		int friendIndex = randomGenerator.nextInt(((FriendSmashApplication) getActivity().getApplication()).getFriends().length());
-		return friendIndex;
-	}
-	
-	private int getRandomCelebIndex() {
-		Random randomGenerator = new Random(System.currentTimeMillis());
-		int celebIndex = randomGenerator.nextInt(CELEBS.length);
-		return celebIndex;
-	}
-	
-	private void setFriendImageAndFire(UserImageView imageView, Bitmap friendBitmap, boolean extraImage) {
-		imageView.setImageBitmap(friendBitmap);
-		if (extraImage) {
-			imageView.setExtraPoints(1);
+	private void showSprite(Sprite sprite) {
+		GameTarget gameTarget = createGameTarget(sprite);
+		sprite.setTag(gameTarget);
+		gameTargets.add(gameTarget);
+
+		if (sprite.isCoin()) {
+			gameTarget.setImageRegion(spriteAtlas, SpriteAtlas.REGION_COIN);
+		} else if (sprite.shouldSmash() && isSocialMode) {
+			// Bonus images are worth an extra point, so they get a border to stand out
+			gameTarget.setImageBitmap(sprite.getExtraPoints() > 0 ?
+					friendToSmashSprites.getBonusSprite() : friendToSmashSprites.getSprite());
+		} else {
+			gameTarget.setImageRegion(spriteAtlas, sprite.getCelebIndex());
 		}
-		fireImage(imageView, extraImage);
-	}
-	
-	private void setCelebImageAndFire(UserImageView imageView, int celebIndex, boolean extraImage) {
-	    int imageResource = getResources().getIdentifier((String) CELEBS[celebIndex].second, null, getActivity().getPackageName());
+		gameTarget.update();
 
-	    Drawable image = getResources().getDrawable(imageResource);
-	    imageView.setImageDrawable(image);
-	    
-	    fireImage(imageView, extraImage);
-	}
-	
-	private void setCoinImageAndFire(UserImageView imageView, boolean extraImage) {
-	    imageView.setImageResource(R.drawable.coin);
-	    fireImage(imageView, extraImage);
+		firstImagePendingFiring = false;
 	}
-	
-	private void fireImage(final UserImageView imageView, boolean extraImage) {
-	    imageView.setupAndStartAnimations(iconWidth, iconWidth, screenWidth, screenHeight, new AnimatorListener() {
-            @Override
-            public void onAnimationCancel(Animator animation) {
-            }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                if (!imageView.isWrongImageSmashed()) {
-                    if (imageView.getVisibility() == View.VISIBLE && imageView.shouldSmash() && !imageView.isVoid() && !imageView.isCoin()) {
-                        // Image is still visible, so user didn't smash it and they should have done (and it isn't void), so decrement the lives by one
-                        setLives(getLives() - 1);
-                    }
+	private void onGameFrame(long now) {
+		frameStats.onFrame(now, simulation.getSprites().size());
 
-                    hideAndRemove(imageView);
-                }
-            }
+		simulation.advance(now);
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
-            }
+		for (int i = 0; i < gameTargets.size(); i++) {
+			gameTargets.get(i).update();
+		}
 
-            @Override
-            public void onAnimationStart(Animator animation) {
-            }
-        });
-	    
-	    if (!extraImage) {
-	    	fireAnotherImage();
-	    }
-	    
-		firstImagePendingFiring = false;
+		if (spriteTextureView != null) {
+			spriteTextureView.drawFrame();
+		}
 	}
 	
-	private void hideAndRemove(UserImageView userImageView) {
-		if (userImageView.getVisibility() == View.VISIBLE) {
-			userImageView.setVisibility(View.GONE);
+	private void hideAndRemove(GameTarget gameTarget) {
+		if (spriteTextureView != null) {
+			spriteTextureView.removeSprite((SpriteTarget) gameTarget);
+		} else {
+			getGameFrame().removeView((UserImageView) gameTarget);
 		}
 		
-		getGameFrame().removeView(userImageView);
-		
-		getUserImageViews().remove(userImageView);
+		getGameTargets().remove(gameTarget);
+
+		gameTargetPool.release(gameTarget);
 	}
 	
-	private void fireAnotherImage() {
-		if (fireImageTask != null)
- 		{
- 			timerHandler.postDelayed(fireImageTask, 700);
- 		}
-	}
-
 	private void fireFirstImage() {
 		if (isSocialMode) {
 			Bundle bundle = getActivity().getIntent().getExtras();
@@ -320,7 +382,7 @@ public class GameFragment extends Fragment {
 				userID = bundle.getString("user_id");
 				numBombsRemaining = bundle.getInt("num_bombs") <= FriendSmashApplication.NUM_BOMBS_ALLOWED_IN_GAME ?
 						bundle.getInt("num_bombs") : FriendSmashApplication.NUM_BOMBS_ALLOWED_IN_GAME;
-				setBombsRemaining(numBombsRemaining);
+				simulation.setBombsRemaining(numBombsRemaining);
 			}
 			
 			if (requestID != null && friendToSmashIDProvided == null) {
@@ -333,203 +395,111 @@ public class GameFragment extends Fragment {
 				progressContainer.setVisibility(View.INVISIBLE);
 				setSmashPlayerNameTextView();
 				
-				spawnImage(false);
+				startFiringImages();
 			}
 		} else {
 			progressContainer.setVisibility(View.INVISIBLE);
 			setSmashPlayerNameTextView();
 			
-			spawnImage(false);
+			startFiringImages();
 		}
 	}
 	
 	private void fireFirstImageWithRequestID(String requestID) {
-        GameRequest.getUserDataFromRequest(requestID, new GraphAPICallback() {
-            @Override
-            public void handleResponse(GraphResponse response) {
-                friendToSmashIDProvided = response.getJSONObject().optString("id");
-                setFriendToSmashFromGraphAPIResponse(response);
-            }
-
-            @Override
-            public void handleError(FacebookRequestError error) {
-                Log.e(FriendSmashApplication.TAG, error.toString());
-                closeAndHandleError(error);
-            }
-        });
+		// The home screen started resolving the target when it was deep linked
+		TargetPrefetcher targetPrefetcher = ((FriendSmashApplication) getActivity().getApplication()).getTargetPrefetcher();
+		targetPrefetcher.getRequestTarget(requestID, deepLinkedTargetCallback);
 	}
 	
 	private void fireFirstImageWithUserID(String userID) {
-        friendToSmashIDProvided = userID;
-        GraphAPICall userCall = GraphAPICall.callUser(friendToSmashIDProvided, "first_name", new GraphAPICallback() {
-            @Override
-            public void handleResponse(GraphResponse response) {
-                setFriendToSmashFromGraphAPIResponse(response);
-            }
-
-            @Override
-            public void handleError(FacebookRequestError error) {
-                Log.e(FriendSmashApplication.TAG, error.toString());
-                closeAndHandleError(error);
-            }
-        });
-        userCall.executeAsync();
+		friendToSmashIDProvided = userID;
+		TargetPrefetcher targetPrefetcher = ((FriendSmashApplication) getActivity().getApplication()).getTargetPrefetcher();
+		targetPrefetcher.getUserTarget(userID, deepLinkedTargetCallback);
 	}
 
-    private void setFriendToSmashFromGraphAPIResponse (GraphResponse response) {
-        if (response != null) {
-            friendToSmashFirstName = response.getJSONObject().optString("first_name");
-        }
-        if (friendToSmashFirstName != null) {
-            progressContainer.setVisibility(View.INVISIBLE);
-            setSmashPlayerNameTextView();
-            spawnImage(false);
-        }
-    }
-	
-	private void spawnImage(final boolean extraImage) {
-        Random randomGenerator = new Random(System.currentTimeMillis());
-
-        boolean shouldSmash = true;
-        boolean isCoin = false;
-        if (firstImageFired) {
-        	if (randomGenerator.nextInt(CELEB_FREQUENCY) == 0 && firstImageFired) {
-            	shouldSmash = false;
-            } else if (randomGenerator.nextInt(COIN_FREQUENCY) == 0 && firstImageFired) {
-            	isCoin = true;
-            }
-        } else {
-        	shouldSmash = true;
-        	firstImageFired = true;
-        }
-
-        final UserImageView userImageView = (new UserImageView(getActivity(), shouldSmash, isCoin));
-        userImageView.setOnTouchListener(new OnTouchListener() {
-			@Override
-			public boolean onTouch(View v, MotionEvent event) {
-				if (userImageView.shouldSmash()) {
-					if (userImageView.isCoin()) {
-						coinsCollected++;
-					} else {
-						setScore(getScore() + 1 + userImageView.getExtraPoints());
-					}
-
-					v.setVisibility(View.GONE);
-					
-					getUserImageViews().remove(v);
-				} else {
-					wrongImageSmashed(userImageView);
-				}
-				return false;
-			}
-		});
-        userImageView.setLayoutParams(new LinearLayout.LayoutParams(iconWidth, iconWidth));
-        gameFrame.addView(userImageView);
-        userImageViews.add(userImageView);
-        
-        if (userImageView.shouldSmash()) {
-        	if (userImageView.isCoin()) {
-        		setCoinImageAndFire(userImageView, extraImage);
-        	} else {
-		        if (isSocialMode) {
-					if (friendToSmashBitmap != null) {
-						setFriendImageAndFire(userImageView, friendToSmashBitmap, extraImage);
-					} else {
-						progressContainer.setVisibility(View.VISIBLE);
-						
-						final String friendToSmashID = friendToSmashIDProvided != null ? friendToSmashIDProvided :
-							((FriendSmashApplication) getActivity().getApplication()).getFriend(friendToSmashIndex).optString("id");
-						
-						fetchFriendBitmapAndFireImages(userImageView, friendToSmashID, extraImage);
-					}
-				} else {
-					setCelebImageAndFire(userImageView, celebToSmashIndex, extraImage);
-				}
-        	}
-        } else {
-        	int randomCelebToSmashIndex;
-        	do {
-        		randomCelebToSmashIndex = randomGenerator.nextInt(CELEBS.length);
-        	} while (randomCelebToSmashIndex == celebToSmashIndex);
-        	setCelebImageAndFire(userImageView, randomCelebToSmashIndex, extraImage);
-        }
-	}
-	
-	private void wrongImageSmashed(final UserImageView userImageView) {
-		userImageView.setWrongImageSmashed(true);
-		userImageView.stopMovementAnimations();
-		hideAllUserImageViewsExcept(userImageView);
-		
-		userImageView.scaleUp(new AnimatorListener() {
-			@Override
-			public void onAnimationCancel(Animator animation) {
+	private final TargetPrefetcher.Callback deepLinkedTargetCallback = new TargetPrefetcher.Callback() {
+		@Override
+		public void onTargetResolved(String userId, String firstName) {
+			if (getActivity() == null) {
+				return;
 			}
+			friendToSmashIDProvided = userId;
+			friendToSmashFirstName = firstName;
+			progressContainer.setVisibility(View.INVISIBLE);
+			setSmashPlayerNameTextView();
+			startFiringImages();
+		}
 
-			@Override
-			public void onAnimationEnd(Animator animation) {
-				userImageView.stopRotationAnimation();
-				setLives(0);
+		@Override
+		public void onTargetError(FacebookRequestError error) {
+			Log.e(FriendSmashApplication.TAG, error.toString());
+			if (getActivity() != null) {
+				closeAndHandleError(error);
 			}
+		}
+	};
+	
+	private void startFiringImages() {
+		if (isSocialMode && friendToSmashSprites == null) {
+			final String friendToSmashID = friendToSmashIDProvided != null ? friendToSmashIDProvided :
+				((FriendSmashApplication) getActivity().getApplication()).getFriend(friendToSmashIndex).optString("id");
+			
+			fetchFriendSpritesAndFireImages(friendToSmashID);
+		} else {
+			simulation.startFiring();
+		}
+	}
 
-			@Override
-			public void onAnimationRepeat(Animator animation) {
-			}
+	private GameTarget createGameTarget(Sprite sprite) {
+		GameTarget gameTarget = gameTargetPool.acquire(sprite);
+		if (spriteTextureView != null) {
+			spriteTextureView.addSprite((SpriteTarget) gameTarget);
+		} else {
+			gameFrame.addView((UserImageView) gameTarget);
+		}
+		return gameTarget;
+	}
+
+	private void fetchFriendSpritesAndFireImages(final String friendToSmashID) {
+		AvatarLoader avatarLoader = ((FriendSmashApplication) getActivity().getApplication()).getAvatarLoader();
 
+		if (friendToSmashSpritesCallback != null) {
+			return;
+		}
+		friendToSmashSpritesCallback = new AvatarLoader.SpritesCallback() {
 			@Override
-			public void onAnimationStart(Animator animation) {
+			public void onSpritesLoaded(String userId, AvatarSprites sprites) {
+				friendToSmashSpritesCallback = null;
+				friendToSmashSprites = sprites;
+				onFriendSpritesFetched(friendToSmashID);
 			}
-    	});
-		
-		getGameFrame().bringChildToFront(userImageView);
+		};
+
+		// Replaying against the same friend, or one prefetched by the home screen, starts straight away
+		AvatarSprites loadedSprites = avatarLoader.loadSprites(friendToSmashID, IoScheduler.Priority.CRITICAL,
+				friendToSmashSpritesCallback);
+		if (loadedSprites != null) {
+			friendToSmashSpritesCallback = null;
+			friendToSmashSprites = loadedSprites;
+			onFriendSpritesFetched(friendToSmashID);
+		} else {
+			friendToSmashSpritesLoadingID = friendToSmashID;
+			progressContainer.setVisibility(View.VISIBLE);
+		}
 	}
-	
-	private void fetchFriendBitmapAndFireImages(final UserImageView userImageView, final String friendToSmashID, final boolean extraImage) {
-		AsyncTask.execute(new Runnable() {
-			public void run() {
-            URL bitmapURL;
-            try {
-                bitmapURL = new URL("http://graph.facebook.com/" + friendToSmashID +
-                        "/picture?redirect=false&width=" + iconWidth + "&height=" + iconWidth);
-                InputStream bitmapURLInputStream = bitmapURL.openConnection().getInputStream();
-                BufferedReader r = new BufferedReader(new InputStreamReader(bitmapURLInputStream));
-                StringBuilder bitmapURLString = new StringBuilder();
-                String line;
-                while ((line = r.readLine()) != null) {
-                    bitmapURLString.append(line);
-                }
-                try {
-
-                    JSONObject obj = new JSONObject(bitmapURLString.toString());
-                    JSONObject jsonObject = obj.getJSONObject("data");
-                    String imageURLString = jsonObject.getString("url");
-                    URL imageURL = new URL(imageURLString);
-                    friendToSmashBitmap = BitmapFactory.decodeStream(imageURL.openConnection().getInputStream());
-                } catch (Exception e) {
-                    Log.e(FriendSmashApplication.TAG, e.toString());
-                    closeAndShowError(getResources().getString(R.string.error_fetching_friend_bitmap));
-                }
-            } catch (Exception e) {
-                Log.e(FriendSmashApplication.TAG, e.toString());
-            }
-
-            uiHandler.post(new Runnable() {
-                @Override
-                public void run() {
-                progressContainer.setVisibility(View.INVISIBLE);
-
-                if (friendToSmashBitmap != null) {
-                    setFriendImageAndFire(userImageView, friendToSmashBitmap, extraImage);
-
-                    // Also set the lastFriendSmashedID and lastFriendSmashedName in the application
-                    ((FriendSmashApplication) getActivity().getApplication()).setLastFriendSmashedID(friendToSmashID);
-                    ((FriendSmashApplication) getActivity().getApplication()).setLastFriendSmashedName(friendToSmashFirstName);
-                } else {
-                    closeAndShowError(getResources().getString(R.string.error_fetching_friend_bitmap));
-                }
-                }
-            });
-			}
-		});
+
+	private void onFriendSpritesFetched(String friendToSmashID) {
+		progressContainer.setVisibility(View.INVISIBLE);
+
+		if (friendToSmashSprites != null) {
+			simulation.startFiring();
+
+			// Also set the lastFriendSmashedID and lastFriendSmashedName in the application
+			((FriendSmashApplication) getActivity().getApplication()).setLastFriendSmashedID(friendToSmashID);
+			((FriendSmashApplication) getActivity().getApplication()).setLastFriendSmashedName(friendToSmashFirstName);
+		} else {
+			closeAndShowError(getResources().getString(R.string.error_fetching_friend_bitmap));
+		}
 	}
 	
 	private void closeAndShowError(String error) {
@@ -548,39 +518,13 @@ public class GameFragment extends Fragment {
 		getActivity().finish();
 	}
 	
-	void hideAllUserImageViews() {
-		Iterator<UserImageView> userImageViewsIterator = userImageViews.iterator();
-		while (userImageViewsIterator.hasNext()) {
-			UserImageView currentUserImageView = userImageViewsIterator.next();
-			currentUserImageView.setVisibility(View.GONE);
-		}
-	}
-	
-	void hideAllUserImageViewsExcept(UserImageView userImageView) {
-		timerHandler.removeCallbacks(fireImageTask);
-		
-		Iterator<UserImageView> userImageViewsIterator = userImageViews.iterator();
-		while (userImageViewsIterator.hasNext()) {
-			UserImageView currentUserImageView = userImageViewsIterator.next();
-			if (!currentUserImageView.equals(userImageView)) {
-				currentUserImageView.setVisibility(View.GONE);
-			}
-		}
-	}
-	
-	private void markAllUserImageViewsAsVoid() {
-		Iterator<UserImageView> userImageViewsIterator = userImageViews.iterator();
-		while (userImageViewsIterator.hasNext()) {
-			UserImageView currentUserImageView = userImageViewsIterator.next();
-			currentUserImageView.setVoid(true);
-		}
-	}
-	
 	@Override
 	public void onPause() {
 		super.onPause();
 
 		stopTheFiringImages();
+		gameLoop.stop();
+		frameStats.pause();
 	}
 	
 	@Override
@@ -588,6 +532,7 @@ public class GameFragment extends Fragment {
 		super.onResume();
 
 		stopTheFiringImages();
+		gameLoop.start();
 		
 		if (!imagesStartedFiring) {
 			if (isSocialMode) {
@@ -604,76 +549,31 @@ public class GameFragment extends Fragment {
 	}
 	
 	private void stopTheFiringImages() {
-		markAllUserImageViewsAsVoid();
+		simulation.stopFiring();
 		
-		timerHandler.removeCallbacks(fireImageTask);
 		imagesStartedFiring = false;
 	}
 	
-	private int getScore() {
-		return score;
-	}
+	private void finishGame() {
+		gameLoop.stop();
 
-	private void setScore(int score) {
-		this.score = score;
-		
-		scoreTextView.setText("Score: " + score);
-		
-		if (score > 0 && score % 10 == 0) {
-			for (int i=0; i<score/20; i++) {
-				spawnImage(true);
-			}
-		}
-	}
-
-	private int getLives() {
-		return lives;
-	}
-
-	private void setLives(int lives) {
-		this.lives = lives;
-		
 		if (getActivity() != null) {
-			livesContainer.removeAllViews();
-			for (int i=0; i<lives; i++) {
-				ImageView heartImageView = new ImageView(getActivity());
-				heartImageView.setImageResource(R.drawable.heart_red);
-			    livesContainer.addView(heartImageView);
+			Bundle bundle = new Bundle();
+			bundle.putInt("score", simulation.getScore());
+			bundle.putInt("coins_collected", simulation.getCoinsCollected());
+			bundle.putInt("bombs_used", simulation.getBombsUsed());
+			bundle.putBundle("frame_stats", frameStats.toBundle());
+
+			if (BuildConfig.DEBUG) {
+				Log.d(FriendSmashApplication.TAG, "I/O queues: " +
+						((FriendSmashApplication) getActivity().getApplication()).getIoScheduler().getSummary());
 			}
 			
-			if (lives <= 0) {
-				Bundle bundle = new Bundle();
-				bundle.putInt("score", getScore());
-				bundle.putInt("coins_collected", coinsCollected);
-				bundle.putInt("bombs_used", bombsUsed);
-				
-				Intent i = new Intent();
-				i.putExtras(bundle);
-			
-				getActivity().setResult(Activity.RESULT_OK, i);
-				getActivity().finish();
-			}
-		}
-	}
-	
-	private int getBombsRemaining() {
-		return bombsRemaining;
-	}
-
-	private void setBombsRemaining(int bombsRemaining) {
-		this.bombsRemaining = bombsRemaining;
+			Intent i = new Intent();
+			i.putExtras(bundle);
 		
-		if (getActivity() != null) {
-			bombsContainer.removeAllViews();
-			for (int i=0; i<bombsRemaining; i++) {
-				ImageView bombImageView = new ImageView(getActivity());
-				bombImageView.setImageResource(R.drawable.bomb_in_game);
-				bombsContainer.addView(bombImageView);
-			}
-			
-			if (bombsRemaining <= 0) {
-				getGameFrame().removeView(bombButton);
-			}
+			getActivity().setResult(Activity.RESULT_OK, i);
+			getActivity().finish();
 		}
 	}
 
@@ -681,7 +581,7 @@ public class GameFragment extends Fragment {
 		return gameFrame;
 	}
 	
-	public ArrayList<UserImageView> getUserImageViews() {
-		return userImageViews;
+	public ArrayList<GameTarget> getGameTargets() {
+		return gameTargets;
 	}
 }
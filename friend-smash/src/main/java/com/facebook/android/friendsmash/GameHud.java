@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
+
+/**
+ *  The lives, bombs and score shown over the game.  A fixed number of heart and bomb slots are
+ *  created up front and only shown or hidden as the lives and bombs change, and the score is
+ *  drawn by a ScoreView, so nothing that happens during a game adds, removes or lays out views
+ */
+public class GameHud {
+
+	private final ImageView[] heartImageViews;
+	private final ImageView[] bombImageViews;
+	private final ScoreView scoreView;
+	private final View bombButton;
+
+	GameHud(Context context, SpriteAtlas spriteAtlas, LinearLayout livesContainer, LinearLayout bombsContainer,
+			ScoreView scoreView, View bombButton, int maxLives, int maxBombs) {
+		this.scoreView = scoreView;
+		this.bombButton = bombButton;
+
+		livesContainer.removeAllViews();
+		heartImageViews = new ImageView[maxLives];
+		for (int i=0; i<maxLives; i++) {
+			heartImageViews[i] = new ImageView(context);
+			heartImageViews[i].setImageDrawable(spriteAtlas.newDrawable(SpriteAtlas.REGION_HEART));
+			livesContainer.addView(heartImageViews[i]);
+		}
+
+		bombsContainer.removeAllViews();
+		bombImageViews = new ImageView[maxBombs];
+		for (int i=0; i<maxBombs; i++) {
+			bombImageViews[i] = new ImageView(context);
+			bombImageViews[i].setImageDrawable(spriteAtlas.newDrawable(SpriteAtlas.REGION_BOMB));
+			bombsContainer.addView(bombImageViews[i]);
+		}
+	}
+
+	void showScore(int score) {
+		scoreView.setScore(score);
+	}
+
+	void showLives(int lives) {
+		showSlots(heartImageViews, lives);
+	}
+
+	void showBombsRemaining(int bombsRemaining) {
+		showSlots(bombImageViews, bombsRemaining);
+
+		if (bombsRemaining <= 0 && bombButton.getVisibility() != View.GONE) {
+			bombButton.setVisibility(View.GONE);
+		}
+	}
+
+	/**
+	 *  Shows the first count slots.  The others are only made invisible rather than gone, so the
+	 *  containers keep their size
+	 */
+	private static void showSlots(ImageView[] slots, int count) {
+		for (int i = 0; i < slots.length; i++) {
+			int visibility = i < count ? View.VISIBLE : View.INVISIBLE;
+			if (slots[i].getVisibility() != visibility) {
+				slots[i].setVisibility(visibility);
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ *  Drives the game with a single callback per display frame.  Uses the Choreographer on Jelly Bean
+ *  and above so frames are aligned with vsync, and falls back to a Handler posting every 16ms on
+ *  Ice Cream Sandwich.  Frame times are in the SystemClock.uptimeMillis() time base
+ */
+public class GameLoop {
+
+	interface Callback {
+		void onFrame(long frameTimeMillis);
+	}
+
+	private static final long FALLBACK_FRAME_INTERVAL = 16;
+
+	private final Callback callback;
+
+	private final VsyncFrameScheduler vsyncFrameScheduler;
+
+	private final Handler handler = new Handler();
+
+	private final Runnable fallbackFrameTask = new Runnable() {
+		@Override
+		public void run() {
+			doFrame(SystemClock.uptimeMillis());
+		}
+	};
+
+	private boolean running = false;
+
+	GameLoop(Callback callback) {
+		this.callback = callback;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			vsyncFrameScheduler = new VsyncFrameScheduler(this);
+		} else {
+			vsyncFrameScheduler = null;
+		}
+	}
+
+	void start() {
+		if (!running) {
+			running = true;
+			scheduleNextFrame();
+		}
+	}
+
+	void stop() {
+		running = false;
+		if (vsyncFrameScheduler != null) {
+			vsyncFrameScheduler.cancel();
+		} else {
+			handler.removeCallbacks(fallbackFrameTask);
+		}
+	}
+
+	boolean isRunning() {
+		return running;
+	}
+
+	private void scheduleNextFrame() {
+		if (vsyncFrameScheduler != null) {
+			vsyncFrameScheduler.schedule();
+		} else {
+			handler.postDelayed(fallbackFrameTask, FALLBACK_FRAME_INTERVAL);
+		}
+	}
+
+	private void doFrame(long frameTimeMillis) {
+		if (running) {
+			// Schedule first, so the callback can stop the loop
+			scheduleNextFrame();
+			callback.onFrame(frameTimeMillis);
+		}
+	}
+
+	/**
+	 *  Kept in its own class so the Choreographer is never loaded on Ice Cream Sandwich
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	private static class VsyncFrameScheduler implements Choreographer.FrameCallback {
+
+		private final GameLoop gameLoop;
+
+		VsyncFrameScheduler(GameLoop gameLoop) {
+			this.gameLoop = gameLoop;
+		}
+
+		void schedule() {
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+
+		void cancel() {
+			Choreographer.getInstance().removeFrameCallback(this);
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			// The Choreographer uses System.nanoTime(), which shares its time base with uptimeMillis()
+			gameLoop.doFrame(frameTimeNanos / 1000000);
+		}
+	}
+}
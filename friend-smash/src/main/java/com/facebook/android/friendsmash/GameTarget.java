@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash;
+
+import android.graphics.Bitmap;
+
+import com.facebook.android.friendsmash.game.Sprite;
+
+/**
+ *  Draws a single Sprite of the GameSimulation flying across the game screen.  Implemented both
+ *  by UserImageView (one View per target) and by SpriteTarget (drawn by SpriteTextureView on a
+ *  single surface), so GameFragment can show the game with either.  Targets don't animate
+ *  themselves or apply any game rules: GameFragment calls update() once per frame of its
+ *  GameLoop, after the simulation has moved the sprites along
+ */
+public interface GameTarget {
+
+	/**
+	 *  Puts the target back in its initial state and makes it draw the given sprite, so
+	 *  GameTargetPool can hand it out again
+	 */
+	void bind(Sprite sprite);
+
+	/**
+	 *  Drops the sprite and the image, once the target is back in GameTargetPool
+	 */
+	void recycle();
+
+	Sprite getSprite();
+
+	void setImageBitmap(Bitmap bitmap);
+
+	/**
+	 *  Shows the given region of the atlas, see SpriteAtlas
+	 */
+	void setImageRegion(SpriteAtlas spriteAtlas, int region);
+
+	/**
+	 *  Shows the sprite where the simulation has moved it to, or hides it if it was hidden
+	 */
+	void update();
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash;
+
+import com.facebook.android.friendsmash.game.Sprite;
+
+import java.util.ArrayList;
+
+/**
+ *  Recycles the targets of a game, so that spawning an image doesn't allocate a new UserImageView
+ *  or SpriteTarget and finished ones don't have to be garbage collected mid-game.  Only ever used
+ *  from the UI thread
+ */
+public class GameTargetPool {
+
+	/**
+	 *  Creates a new target whenever there's no free one left to reuse
+	 */
+	interface Factory {
+		GameTarget createGameTarget();
+	}
+
+	// Never keep more free targets around than this
+	private static final int MAX_FREE_GAME_TARGETS = 32;
+
+	private final Factory factory;
+
+	private final ArrayList<GameTarget> freeGameTargets = new ArrayList<GameTarget>();
+
+	GameTargetPool(Factory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 *  Creates free targets up front, so the first spawns of the game don't have to
+	 */
+	void prefill(int count) {
+		while (freeGameTargets.size() < Math.min(count, MAX_FREE_GAME_TARGETS)) {
+			freeGameTargets.add(factory.createGameTarget());
+		}
+	}
+
+	/**
+	 *  Returns a target in its initial state, as if it had just been constructed, drawing the given
+	 *  sprite
+	 */
+	GameTarget acquire(Sprite sprite) {
+		GameTarget gameTarget;
+		if (freeGameTargets.isEmpty()) {
+			gameTarget = factory.createGameTarget();
+		} else {
+			gameTarget = freeGameTargets.remove(freeGameTargets.size() - 1);
+		}
+		gameTarget.bind(sprite);
+		return gameTarget;
+	}
+
+	/**
+	 *  Drops the target's image and gives it back to the pool.  The target must already have
+	 *  been removed from the screen and must not be used by the caller any more
+	 */
+	void release(GameTarget gameTarget) {
+		gameTarget.recycle();
+		if (freeGameTargets.size() < MAX_FREE_GAME_TARGETS) {
+			freeGameTargets.add(gameTarget);
+		}
+	}
+}
@@ -41,6 +41,7 @@ import com.facebook.android.friendsmash.integration.FriendSmashEventsLogger;
 import com.facebook.android.friendsmash.integration.GameRequest;
 import com.facebook.android.friendsmash.integration.GraphAPICall;
 import com.facebook.android.friendsmash.integration.GraphAPICallback;
+import com.facebook.android.friendsmash.integration.GraphAPIPageCallback;
 import com.facebook.appevents.AppEventsLogger;
 import com.facebook.login.LoginManager;
 import com.parse.LogInCallback;
@@ -52,6 +53,8 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Iterator;
 
@@ -179,6 +182,14 @@ public class HomeActivity extends FragmentActivity {
  		super.onDestroy();
         facebookLogin.deactivate();
     }
+
+	@Override
+	public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+		super.dump(prefix, fd, writer, args);
+		// adb shell dumpsys activity com.facebook.android.friendsmash/.HomeActivity
+		writer.println(prefix + "Image metrics:");
+		((FriendSmashApplication) getApplication()).dumpImageMetrics(writer, prefix + "  ");
+	}
 	
 	public void buyBombs() {
 		FriendSmashApplication app = (FriendSmashApplication) getApplication();
@@ -242,7 +253,21 @@ public class HomeActivity extends FragmentActivity {
 				((FBLoggedOutHomeFragment)fragments[FB_LOGGED_OUT_HOME]).progressContainer.setVisibility(View.VISIBLE);
 			}
 
-            GraphAPICall myFriendsCall = GraphAPICall.callMeFriends("name,first_name", new GraphAPICallback() {
+            GraphAPICall myFriendsCall = GraphAPICall.callMeFriends("name,first_name", new GraphAPIPageCallback() {
+                // The friends of whoever was logged in before may still be there, so it's this
+                // call's own first page that counts
+                private boolean firstPageHandled = false;
+
+                @Override
+                public void handlePage(GraphResponse page) {
+                    // The first page is plenty to show the friend picker and pick a friend to
+                    // smash, so the home screen doesn't wait for the others
+                    if (!firstPageHandled) {
+                        firstPageHandled = true;
+                        ((FriendSmashApplication) getApplication()).setFriends(GraphAPICall.getDataFromResponse(page));
+                    }
+                }
+
                 @Override
                 public void handleResponse(GraphResponse response) {
                     JSONArray friendsData = GraphAPICall.getDataFromResponse(response);
@@ -286,10 +311,15 @@ public class HomeActivity extends FragmentActivity {
                 }
             });
 
-			// Create a RequestBatch and add a callback once the batch of requests completes
-			GraphRequestBatch requestBatch = GraphAPICall.createRequestBatch(myFriendsCall, meCall, meScoresCall);
+			// This runs on every change of the login state, so use what was fetched recently
+			if (myFriendsCall != null) {
+				myFriendsCall.setUseCache(true);
+			}
+			meCall.setUseCache(true);
+			meScoresCall.setUseCache(true);
 
-			requestBatch.addCallback(new GraphRequestBatch.Callback() {
+			// Execute the calls in a batch, with a callback once the batch of requests completes
+			GraphAPICall.executeBatchAsync(new GraphRequestBatch.Callback() {
 				@Override
 				public void onBatchCompleted(GraphRequestBatch batch) {
 					if (((FriendSmashApplication)getApplication()).getCurrentFBUser() != null) {
@@ -298,9 +328,7 @@ public class HomeActivity extends FragmentActivity {
 						showError(getString(R.string.error_fetching_profile));
 					}
 				}
-			});
-
-			requestBatch.executeAsync();
+			}, myFriendsCall, meCall, meScoresCall);
 		}
 	}
 	
@@ -343,5 +371,8 @@ public class HomeActivity extends FragmentActivity {
     		ParseUser.logOut();
 
 		LoginManager.getInstance().logOut();
+
+		// Whoever logs in next mustn't see what was fetched for this user
+		GraphAPICall.clearCache();
     }
 }
@@ -26,6 +26,8 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.v4.app.Fragment;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -50,11 +52,12 @@ import com.facebook.android.friendsmash.integration.GraphAPICall;
 import com.facebook.android.friendsmash.integration.GraphAPICallback;
 import com.facebook.android.friendsmash.integration.Sharing;
 import com.facebook.login.widget.LoginButton;
-import com.facebook.login.widget.ProfilePictureView;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -76,8 +79,8 @@ public class HomeFragment extends Fragment {
     private FrameLayout progressContainer;
 
     private TextView scoredTextView;
-    private ProfilePictureView userImage;
-    private ProfilePictureView youSmashedUserImage;
+    private AvatarView userImage;
+    private AvatarView youSmashedUserImage;
     private TextView welcomeTextView;
 
 	private GridView invitesGridView;
@@ -121,11 +124,22 @@ public class HomeFragment extends Fragment {
 			Bundle savedInstanceState) {
 		
 		View v = inflater.inflate(R.layout.fragment_home_fb_logged_in, parent, false);
-		userImage = (ProfilePictureView) v.findViewById(R.id.userImage);
+		userImage = (AvatarView) v.findViewById(R.id.userImage);
 		welcomeTextView = (TextView)v.findViewById(R.id.welcomeTextView);
 
 		personalizeHomeFragment();
 
+		if (BuildConfig.DEBUG) {
+			// Long pressing the title banner shows what loading images has cost so far
+			v.findViewById(R.id.title_banner).setOnLongClickListener(new View.OnLongClickListener() {
+				@Override
+				public boolean onLongClick(View v) {
+					showImageMetrics();
+					return true;
+				}
+			});
+		}
+
 		scoresButton = (ImageView)v.findViewById(R.id.scoresButton);
 		scoresButton.setOnTouchListener(new View.OnTouchListener() {
 			@Override
@@ -237,7 +251,7 @@ public class HomeFragment extends Fragment {
 		logoutButton.setFragment(this);
 
 		gameOverContainer = (LinearLayout)v.findViewById(R.id.gameOverContainer);
-		youSmashedUserImage = (ProfilePictureView)v.findViewById(R.id.youSmashedUserImage);
+		youSmashedUserImage = (AvatarView)v.findViewById(R.id.youSmashedUserImage);
 		scoredTextView = (TextView)v.findViewById(R.id.scoredTextView);
 
 		ImageView gameOverCloseButton = (ImageView)v.findViewById(R.id.gameOverCloseButton);
@@ -252,14 +266,21 @@ public class HomeFragment extends Fragment {
 		hideGameOverContainer();
 
 		progressContainer.setVisibility(View.INVISIBLE);
+
+		application.getScreenImages().apply(v);
 		
 		return v;
 	}
 
+	@Override
+	public void onDestroyView() {
+		super.onDestroyView();
+		application.getScreenImages().release();
+	}
+
 	public void personalizeHomeFragment() {
 		if (application.getCurrentFBUser() != null) {
             userImage.setProfileId(application.getCurrentFBUser().optString("id"));
-            userImage.setCropped(true);
             welcomeTextView.setText("Welcome, " + application.getCurrentFBUser().optString("first_name"));
 		}
 	}
@@ -274,6 +295,17 @@ public class HomeFragment extends Fragment {
 	public void onResume() {
 		super.onResume();
         checkForDeeplinkins();
+
+        // Once the home screen has settled, work out who the next game will be against
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (isResumed()) {
+                    application.getTargetPrefetcher().prefetchRandomFriend(application.getFriends());
+                }
+                return false;
+            }
+        });
 	}
 
     private void checkForDeeplinkins() {
@@ -293,6 +325,8 @@ public class HomeFragment extends Fragment {
                     bundle.putString("request_id", graphRequestIDForSendingUser);
                     i.putExtras(bundle);
                     gameLaunchedFromDeepLinking = true;
+                    // Resolved while the game starts up, and before the request is deleted below
+                    application.getTargetPrefetcher().prefetchRequestTarget(graphRequestIDForSendingUser);
                     startActivityForResult(i, 0);
 
                     GameRequest.deleteRequest(graphRequestIDForSendingUser + "_" + application.getCurrentFBUser().optString("id"));
@@ -303,6 +337,7 @@ public class HomeFragment extends Fragment {
                     bundle.putString("user_id", feedPostIDForSendingUser);
                     i.putExtras(bundle);
                     gameLaunchedFromDeepLinking = true;
+                    application.getTargetPrefetcher().prefetchUserTarget(feedPostIDForSendingUser);
                     startActivityForResult(i, 0);
                 }
             } else {
@@ -346,6 +381,17 @@ public class HomeFragment extends Fragment {
 		}
 	}
 
+	private void showImageMetrics() {
+		StringWriter imageMetrics = new StringWriter();
+		application.dumpImageMetrics(new PrintWriter(imageMetrics), "");
+
+		new AlertDialog.Builder(getActivity())
+		.setPositiveButton(android.R.string.ok, null)
+		.setTitle(R.string.image_metrics_dialog_title)
+		.setMessage(imageMetrics.toString())
+		.show();
+	}
+
 	private void askForFriendsForLeaderboard() {		
 		new AlertDialog.Builder(getActivity())
 		.setPositiveButton(R.string.dialog_yes, new DialogInterface.OnClickListener() {
@@ -485,6 +531,7 @@ public class HomeFragment extends Fragment {
             @Override
             public void handleResponse(GraphResponse response) {
                 application.setFriends(GraphAPICall.getDataFromResponse(response));
+                application.getTargetPrefetcher().prefetchRandomFriend(application.getFriends());
                 callback.afterFriendsLoaded();
             }
 
@@ -516,6 +563,8 @@ public class HomeFragment extends Fragment {
                     if (bombsUsed > 0) {
                         application.setBombs(application.getBombs()-bombsUsed);
                     }
+                    Bundle frameStatsBundle = bundle.getBundle("frame_stats");
+                    application.setLastFrameStats(frameStatsBundle != null ? FrameStats.fromBundle(frameStatsBundle) : null);
 
                     application.saveInventory();
                     loadInventory();
@@ -523,6 +572,10 @@ public class HomeFragment extends Fragment {
                     completeGameOver();
 
                     (getHomeActivity()).getEventsLogger().logGamePlayedEvent(application.getScore());
+                    if (!BuildConfig.DEBUG && application.getLastFrameStats() != null) {
+                        // Debug builds show the frame timing on the game over screen instead
+                        (getHomeActivity()).getEventsLogger().logGameFrameStatsEvent(application.getLastFrameStats());
+                    }
                 }
                 break;
             case Activity.RESULT_FIRST_USER:
@@ -588,6 +641,7 @@ public class HomeFragment extends Fragment {
 		bundle.putString("user_id", userId);
 		bundle.putInt("num_bombs", ((FriendSmashApplication) getActivity().getApplication()).getBombs());
 		i.putExtras(bundle);
+		application.getTargetPrefetcher().prefetchUserTarget(userId);
 		startActivityForResult(i, 0);
 	}
 
@@ -597,7 +651,6 @@ public class HomeFragment extends Fragment {
 
         if (application.getLastFriendSmashedID() != null) {
             youSmashedUserImage.setProfileId(application.getLastFriendSmashedID());
-            youSmashedUserImage.setCropped(true);
             youSmashedUserImage.setVisibility(View.VISIBLE);
         } else {
             youSmashedUserImage.setVisibility(View.INVISIBLE);
@@ -607,7 +660,9 @@ public class HomeFragment extends Fragment {
 			scoredTextView.setText("You smashed " + application.getLastFriendSmashedName() +
 					" " + application.getScore() + (application.getScore() == 1 ? " time!" : " times!") +
 					"\n" + "Collected " + application.getCoinsCollected() +
-					(application.getCoinsCollected() == 1 ? " coin!" : " coins!"));
+					(application.getCoinsCollected() == 1 ? " coin!" : " coins!") +
+					(BuildConfig.DEBUG && application.getLastFrameStats() != null ?
+							"\n\n" + application.getLastFrameStats().getSummary() : ""));
 		}
 		else {
 			scoredTextView.setText(getResources().getString(R.string.no_score));
@@ -29,7 +29,6 @@ import android.widget.ArrayAdapter;
 import android.widget.ImageView;
 import android.widget.TextView;
 
-import com.facebook.login.widget.ProfilePictureView;
 
 import org.json.JSONObject;
 
@@ -51,14 +50,13 @@ public class RequestUserArrayAdapter extends ArrayAdapter<JSONObject> {
 	        .getSystemService(Context.LAYOUT_INFLATER_SERVICE);
 	    
 	    View listItemView = inflater.inflate(R.layout.request_list_item_view, parent, false);
-	    ProfilePictureView profilePicView = (ProfilePictureView) listItemView.findViewById(R.id.requestListItemProfilePic);
+	    AvatarView profilePicView = (AvatarView) listItemView.findViewById(R.id.requestListItemProfilePic);
 	    TextView nameView = (TextView) listItemView.findViewById(R.id.requestListItemName);
 	    final ImageView checkBox = (ImageView) listItemView.findViewById(R.id.requestListItemCheckbox); 
 	    
 	    JSONObject currentUser = users.get(position);
 	    
 	    profilePicView.setProfileId(currentUser.optString("id"));
-	    profilePicView.setCropped(true);        
 	    nameView.setText(currentUser.optString("first_name"));
 	    
 	    checkBox.setOnTouchListener(new View.OnTouchListener() {
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.widget.TextView;
+
+/**
+ *  Shows "Score: " followed by the score, styled like any other TextView, but without ever
+ *  changing its text.  The score is written into a preallocated char buffer and drawn directly,
+ *  and the view is measured once for the widest score it can show, so a new score only
+ *  invalidates the view rather than laying out the game screen again
+ */
+public class ScoreView extends TextView {
+
+	private static final String PREFIX = "Score: ";
+
+	// Wide enough for any score anyone will get
+	private static final int MAX_DIGITS = 6;
+
+	private final char[] buffer = new char[PREFIX.length() + 11];
+	private int length;
+
+	public ScoreView(Context context) {
+		super(context);
+		setScore(0);
+	}
+
+	public ScoreView(Context context, AttributeSet attrs) {
+		super(context, attrs);
+		setScore(0);
+	}
+
+	public ScoreView(Context context, AttributeSet attrs, int defStyle) {
+		super(context, attrs, defStyle);
+		setScore(0);
+	}
+
+	public void setScore(int score) {
+		PREFIX.getChars(0, PREFIX.length(), buffer, 0);
+		length = PREFIX.length();
+
+		// Digits are written backwards from the end of the buffer, then moved after the prefix
+		int end = buffer.length;
+		int start = end;
+		long value = Math.abs((long) score);
+		do {
+			buffer[--start] = (char) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+		if (score < 0) {
+			buffer[--start] = '-';
+		}
+		System.arraycopy(buffer, start, buffer, length, end - start);
+		length += end - start;
+
+		invalidate();
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+
+		StringBuilder widest = new StringBuilder(PREFIX);
+		for (int i = 0; i < MAX_DIGITS; i++) {
+			widest.append('0');
+		}
+		int width = (int) Math.ceil(getPaint().measureText(widest.toString())) + getPaddingLeft() + getPaddingRight();
+		setMeasuredDimension(resolveSize(width, widthMeasureSpec), getMeasuredHeight());
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		Paint paint = getPaint();
+		paint.setColor(getCurrentTextColor());
+
+		// Right aligned, so the score grows away from the edge of the screen
+		float width = paint.measureText(buffer, 0, length);
+		float x = getWidth() - getPaddingRight() - width;
+		canvas.drawText(buffer, 0, length, x, getBaseline(), paint);
+	}
+}
@@ -22,7 +22,6 @@ package com.facebook.android.friendsmash;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.Handler;
 import android.support.v4.app.Fragment;
@@ -41,16 +40,16 @@ import android.widget.TextView;
 import com.facebook.FacebookRequestError;
 import com.facebook.GraphResponse;
 import com.facebook.android.friendsmash.integration.GraphAPICall;
-import com.facebook.android.friendsmash.integration.GraphAPICallback;
-import com.facebook.login.widget.ProfilePictureView;
+import com.facebook.android.friendsmash.integration.GraphAPIPageCallback;
+import com.facebook.android.friendsmash.integration.GraphPagedResult;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 
 public class ScoreboardFragment extends Fragment {
 	
@@ -82,10 +81,18 @@ public class ScoreboardFragment extends Fragment {
 		progressContainer = (FrameLayout)v.findViewById(R.id.progressContainer);
 
 		progressContainer.setVisibility(View.INVISIBLE);
+
+		application.getScreenImages().apply(v);
 		
 		return v;
 	}
 
+	@Override
+	public void onDestroyView() {
+		super.onDestroyView();
+		application.getScreenImages().release();
+	}
+
 	private void closeAndShowError(String error) {
 		Bundle bundle = new Bundle();
 		bundle.putString("error", error);
@@ -104,38 +111,43 @@ public class ScoreboardFragment extends Fragment {
 			progressContainer.setVisibility(View.VISIBLE);
 			fetchScoreboardEntries();
 		} else {
-			populateScoreboard();
+			populateScoreboard(application.getScoreboardEntriesList());
 		}
 	}
 
 	private void fetchScoreboardEntries () {
-        GraphAPICall scoresCall = GraphAPICall.callAppScores(application.getFBAppID(), new GraphAPICallback() {
+        GraphAPICall scoresCall = GraphAPICall.callAppScores(application.getFBAppID(), new GraphAPIPageCallback() {
+            // Scores come highest first, so each page's rows go below those already shown while
+            // the others load. The complete list is sorted and shown once it's all there
             @Override
-            public void handleResponse(GraphResponse response) {
-                JSONArray dataArray = GraphAPICall.getDataFromResponse(response);
-
-                ArrayList<ScoreboardEntry> scoreboardEntriesList = new ArrayList<ScoreboardEntry>();
-
-                for (int i = 0; i < dataArray.length(); i++) {
-                    JSONObject oneData = dataArray.optJSONObject(i);
-                    int score = oneData.optInt("score");
-
-                    JSONObject userObj = oneData.optJSONObject("user");
-                    String userID = userObj.optString("id");
-                    String userName = userObj.optString("name");
-
-                    scoreboardEntriesList.add(new ScoreboardEntry(userID, userName, score));
+            public void handlePage(GraphResponse page) {
+                final ArrayList<ScoreboardEntry> pageEntriesList = new ArrayList<ScoreboardEntry>();
+                addScoreboardEntries(GraphAPICall.getPagedDataFromResponse(page), pageEntriesList);
+                if (!pageEntriesList.isEmpty()) {
+                    uiHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (isAdded()) {
+                                appendToScoreboard(pageEntriesList);
+                            }
+                        }
+                    });
                 }
+            }
 
-                Comparator<ScoreboardEntry> comparator = Collections.reverseOrder();
-                Collections.sort(scoreboardEntriesList, comparator);
+            @Override
+            public void handleResponse(GraphResponse response) {
+                final ArrayList<ScoreboardEntry> scoreboardEntriesList = new ArrayList<ScoreboardEntry>();
+                addScoreboardEntries(GraphAPICall.getPagedDataFromResponse(response), scoreboardEntriesList);
                 application.setScoreboardEntriesList(scoreboardEntriesList);
 
-                // Populate the scoreboard on the UI thread
+                // Populate the scoreboard on the UI thread, unless the user has left it by then
                 uiHandler.post(new Runnable() {
                     @Override
                     public void run() {
-                        populateScoreboard();
+                        if (isAdded()) {
+                            populateScoreboard(scoreboardEntriesList);
+                        }
                     }
                 });
             }
@@ -145,147 +157,171 @@ public class ScoreboardFragment extends Fragment {
                 Log.e(FriendSmashApplication.TAG, error.toString());
             }
         });
+        // Refetched after every game, so cached for a little while. Publishing the player's own
+        // score clears it from the cache
+        scoresCall.setUseCache(true);
         scoresCall.executeAsync();
 	}
 
-	private void populateScoreboard() {
+	/**
+	 *  Adds the entries of the scores in data to the list, keeping it sorted highest score first
+	 */
+	private static void addScoreboardEntries(GraphPagedResult data, ArrayList<ScoreboardEntry> scoreboardEntriesList) {
+		for (JSONObject oneData : data) {
+			int score = oneData.optInt("score");
+
+			JSONObject userObj = oneData.optJSONObject("user");
+			String userID = userObj.optString("id");
+			String userName = userObj.optString("name");
+
+			scoreboardEntriesList.add(new ScoreboardEntry(userID, userName, score));
+		}
+
+		Comparator<ScoreboardEntry> comparator = Collections.reverseOrder();
+		Collections.sort(scoreboardEntriesList, comparator);
+	}
+
+	private void populateScoreboard(List<ScoreboardEntry> scoreboardEntriesList) {
 		scoreboardContainer.removeAllViews();
 
 		progressContainer.setVisibility(View.INVISIBLE);
 
-		if (application.getScoreboardEntriesList() == null || application.getScoreboardEntriesList().size() <= 0) {
+		if (scoreboardEntriesList == null || scoreboardEntriesList.size() <= 0) {
 			closeAndShowError(getResources().getString(R.string.error_no_scores));
 		} else {
-			int index = 0;
-			Iterator<ScoreboardEntry> scoreboardEntriesIterator = application.getScoreboardEntriesList().iterator();
-			while (scoreboardEntriesIterator.hasNext()) {
-				final ScoreboardEntry currentScoreboardEntry = scoreboardEntriesIterator.next();
-				FrameLayout frameLayout = new FrameLayout(getActivity());
-				scoreboardContainer.addView(frameLayout);
-				int topPadding = getResources().getDimensionPixelSize(R.dimen.scoreboard_entry_top_margin);
-				frameLayout.setPadding(0, topPadding, 0, 0);
-				{
-					ImageView backgroundImageView = new ImageView(getActivity());
-					frameLayout.addView(backgroundImageView);
-
-					String uri = "drawable/scores_stub_even";
-					if (index % 2 != 0) {
-						uri = "drawable/scores_stub_odd";
-					}
-
-				    int imageResource = getResources().getIdentifier(uri, null, getActivity().getPackageName());
-				    Drawable image = getResources().getDrawable(imageResource);
-				    backgroundImageView.setImageDrawable(image);
-
-				    FrameLayout.LayoutParams backgroundImageViewLayoutParams = new FrameLayout.LayoutParams(
-				    		FrameLayout.LayoutParams.WRAP_CONTENT,
-				    		FrameLayout.LayoutParams.WRAP_CONTENT);
-				    int backgroundImageViewMarginTop = getResources().getDimensionPixelSize(R.dimen.scoreboard_background_imageview_margin_top);
-				    int backgroundImageViewMarginSide = getResources().getDimensionPixelSize(R.dimen.scoreboard_background_imageview_margin_side);
-				    
-					if (index % 2 != 0) {
-					    backgroundImageViewLayoutParams.setMargins(backgroundImageViewMarginSide, backgroundImageViewMarginTop, 0, 0);
-						backgroundImageViewLayoutParams.gravity = Gravity.LEFT;
-					} else {
-					    backgroundImageViewLayoutParams.setMargins(0, backgroundImageViewMarginTop, backgroundImageViewMarginSide, 0);						
-					    backgroundImageViewLayoutParams.gravity = Gravity.RIGHT;						
-					}
-					backgroundImageView.setLayoutParams(backgroundImageViewLayoutParams);
-				}
+			appendToScoreboard(scoreboardEntriesList);
+		}
+	}
 
-				{
-				    ProfilePictureView profilePictureView = new ProfilePictureView(getActivity());
-				    frameLayout.addView(profilePictureView);
-
-				    int profilePictureViewWidth = getResources().getDimensionPixelSize(R.dimen.scoreboard_profile_picture_view_width);
-				    FrameLayout.LayoutParams profilePictureViewLayoutParams = new FrameLayout.LayoutParams(profilePictureViewWidth, profilePictureViewWidth);
-				    int profilePictureViewMarginLeft = 0;
-				    int profilePictureViewMarginTop = getResources().getDimensionPixelSize(R.dimen.scoreboard_profile_picture_view_margin_top);
-				    int profilePictureViewMarginRight = 0;
-				    int profilePictureViewMarginBottom = 0;
-				    if (index % 2 == 0) {
-				    	profilePictureViewMarginLeft = getResources().getDimensionPixelSize(R.dimen.scoreboard_profile_picture_view_margin_left);
-					} else {
-						profilePictureViewMarginRight = getResources().getDimensionPixelSize(R.dimen.scoreboard_profile_picture_view_margin_right);
-					}
-				    profilePictureViewLayoutParams.setMargins(profilePictureViewMarginLeft, profilePictureViewMarginTop,
-				    		profilePictureViewMarginRight, profilePictureViewMarginBottom);
-				    profilePictureViewLayoutParams.gravity = Gravity.LEFT;
-					if (index % 2 != 0) {
-						profilePictureViewLayoutParams.gravity = Gravity.RIGHT;
-					}
-					profilePictureView.setLayoutParams(profilePictureViewLayoutParams);
+	/**
+	 *  Adds a row for each of the entries below the rows already on the scoreboard
+	 */
+	private void appendToScoreboard(List<ScoreboardEntry> scoreboardEntriesList) {
+		progressContainer.setVisibility(View.INVISIBLE);
 
-				    profilePictureView.setProfileId(currentScoreboardEntry.getId());
+		int index = scoreboardContainer.getChildCount();
+		Iterator<ScoreboardEntry> scoreboardEntriesIterator = scoreboardEntriesList.iterator();
+		while (scoreboardEntriesIterator.hasNext()) {
+			final ScoreboardEntry currentScoreboardEntry = scoreboardEntriesIterator.next();
+			FrameLayout frameLayout = new FrameLayout(getActivity());
+			scoreboardContainer.addView(frameLayout);
+			int topPadding = getResources().getDimensionPixelSize(R.dimen.scoreboard_entry_top_margin);
+			frameLayout.setPadding(0, topPadding, 0, 0);
+			{
+				ImageView backgroundImageView = new ImageView(getActivity());
+				frameLayout.addView(backgroundImageView);
+
+				// Resolved at compile time, and Resources shares the decoded bitmap between the entries
+				backgroundImageView.setImageResource(index % 2 != 0 ? R.drawable.scores_stub_odd : R.drawable.scores_stub_even);
+
+			    FrameLayout.LayoutParams backgroundImageViewLayoutParams = new FrameLayout.LayoutParams(
+			    		FrameLayout.LayoutParams.WRAP_CONTENT,
+			    		FrameLayout.LayoutParams.WRAP_CONTENT);
+			    int backgroundImageViewMarginTop = getResources().getDimensionPixelSize(R.dimen.scoreboard_background_imageview_margin_top);
+			    int backgroundImageViewMarginSide = getResources().getDimensionPixelSize(R.dimen.scoreboard_background_imageview_margin_side);
+			    
+				if (index % 2 != 0) {
+				    backgroundImageViewLayoutParams.setMargins(backgroundImageViewMarginSide, backgroundImageViewMarginTop, 0, 0);
+					backgroundImageViewLayoutParams.gravity = Gravity.LEFT;
+				} else {
+				    backgroundImageViewLayoutParams.setMargins(0, backgroundImageViewMarginTop, backgroundImageViewMarginSide, 0);						
+				    backgroundImageViewLayoutParams.gravity = Gravity.RIGHT;						
 				}
+				backgroundImageView.setLayoutParams(backgroundImageViewLayoutParams);
+			}
 
-				LinearLayout textViewsLinearLayout = new LinearLayout(getActivity());
-				frameLayout.addView(textViewsLinearLayout);
+			{
+			    AvatarView profilePictureView = new AvatarView(getActivity());
+			    frameLayout.addView(profilePictureView);
 
-				FrameLayout.LayoutParams textViewsLinearLayoutLayoutParams = new FrameLayout.LayoutParams(
-						FrameLayout.LayoutParams.WRAP_CONTENT,
-						FrameLayout.LayoutParams.WRAP_CONTENT);
-				int textViewsLinearLayoutMarginLeft = 0;
-			    int textViewsLinearLayoutMarginTop = getResources().getDimensionPixelSize(R.dimen.scoreboard_textviews_linearlayout_margin_top);
-			    int textViewsLinearLayoutMarginRight = 0;
-			    int textViewsLinearLayoutMarginBottom = 0;
+			    int profilePictureViewWidth = getResources().getDimensionPixelSize(R.dimen.scoreboard_profile_picture_view_width);
+			    FrameLayout.LayoutParams profilePictureViewLayoutParams = new FrameLayout.LayoutParams(profilePictureViewWidth, profilePictureViewWidth);
+			    int profilePictureViewMarginLeft = 0;
+			    int profilePictureViewMarginTop = getResources().getDimensionPixelSize(R.dimen.scoreboard_profile_picture_view_margin_top);
+			    int profilePictureViewMarginRight = 0;
+			    int profilePictureViewMarginBottom = 0;
 			    if (index % 2 == 0) {
-			    	textViewsLinearLayoutMarginLeft = getResources().getDimensionPixelSize(R.dimen.scoreboard_textviews_linearlayout_margin_left);
+			    	profilePictureViewMarginLeft = getResources().getDimensionPixelSize(R.dimen.scoreboard_profile_picture_view_margin_left);
 				} else {
-					textViewsLinearLayoutMarginRight = getResources().getDimensionPixelSize(R.dimen.scoreboard_textviews_linearlayout_margin_right);
+					profilePictureViewMarginRight = getResources().getDimensionPixelSize(R.dimen.scoreboard_profile_picture_view_margin_right);
 				}
-			    textViewsLinearLayoutLayoutParams.setMargins(textViewsLinearLayoutMarginLeft, textViewsLinearLayoutMarginTop,
-			    		textViewsLinearLayoutMarginRight, textViewsLinearLayoutMarginBottom);
-			    textViewsLinearLayoutLayoutParams.gravity = Gravity.LEFT;
+			    profilePictureViewLayoutParams.setMargins(profilePictureViewMarginLeft, profilePictureViewMarginTop,
+			    		profilePictureViewMarginRight, profilePictureViewMarginBottom);
+			    profilePictureViewLayoutParams.gravity = Gravity.LEFT;
 				if (index % 2 != 0) {
-					// Odd entry
-					textViewsLinearLayoutLayoutParams.gravity = Gravity.RIGHT;
+					profilePictureViewLayoutParams.gravity = Gravity.RIGHT;
 				}
-				textViewsLinearLayout.setLayoutParams(textViewsLinearLayoutLayoutParams);
-				textViewsLinearLayout.setOrientation(LinearLayout.VERTICAL);
+				profilePictureView.setLayoutParams(profilePictureViewLayoutParams);
 
-				{
-					int position = index+1;
-					String currentScoreboardEntryTitle = position + ". " + currentScoreboardEntry.getName();
+			    profilePictureView.setProfileId(currentScoreboardEntry.getId());
+			}
 
-				    TextView titleTextView = new TextView(getActivity());
-				    textViewsLinearLayout.addView(titleTextView);
+			LinearLayout textViewsLinearLayout = new LinearLayout(getActivity());
+			frameLayout.addView(textViewsLinearLayout);
+
+			FrameLayout.LayoutParams textViewsLinearLayoutLayoutParams = new FrameLayout.LayoutParams(
+					FrameLayout.LayoutParams.WRAP_CONTENT,
+					FrameLayout.LayoutParams.WRAP_CONTENT);
+			int textViewsLinearLayoutMarginLeft = 0;
+		    int textViewsLinearLayoutMarginTop = getResources().getDimensionPixelSize(R.dimen.scoreboard_textviews_linearlayout_margin_top);
+		    int textViewsLinearLayoutMarginRight = 0;
+		    int textViewsLinearLayoutMarginBottom = 0;
+		    if (index % 2 == 0) {
+		    	textViewsLinearLayoutMarginLeft = getResources().getDimensionPixelSize(R.dimen.scoreboard_textviews_linearlayout_margin_left);
+			} else {
+				textViewsLinearLayoutMarginRight = getResources().getDimensionPixelSize(R.dimen.scoreboard_textviews_linearlayout_margin_right);
+			}
+		    textViewsLinearLayoutLayoutParams.setMargins(textViewsLinearLayoutMarginLeft, textViewsLinearLayoutMarginTop,
+		    		textViewsLinearLayoutMarginRight, textViewsLinearLayoutMarginBottom);
+		    textViewsLinearLayoutLayoutParams.gravity = Gravity.LEFT;
+			if (index % 2 != 0) {
+				// Odd entry
+				textViewsLinearLayoutLayoutParams.gravity = Gravity.RIGHT;
+			}
+			textViewsLinearLayout.setLayoutParams(textViewsLinearLayoutLayoutParams);
+			textViewsLinearLayout.setOrientation(LinearLayout.VERTICAL);
 
-				    titleTextView.setText(currentScoreboardEntryTitle);
-				    titleTextView.setTextAppearance(getActivity(), R.style.ScoreboardPlayerNameFont);
-				}
+			{
+				int position = index+1;
+				String currentScoreboardEntryTitle = position + ". " + currentScoreboardEntry.getName();
 
-				{
-				    TextView scoreTextView = new TextView(getActivity());
-				    textViewsLinearLayout.addView(scoreTextView);
+			    TextView titleTextView = new TextView(getActivity());
+			    textViewsLinearLayout.addView(titleTextView);
 
-				    scoreTextView.setText("Score: " + currentScoreboardEntry.getScore());
-				    scoreTextView.setTextAppearance(getActivity(), R.style.ScoreboardPlayerScoreFont);
-				}
+			    titleTextView.setText(currentScoreboardEntryTitle);
+			    titleTextView.setTextAppearance(getActivity(), R.style.ScoreboardPlayerNameFont);
+			}
 
-				frameLayout.setOnTouchListener(new OnTouchListener() {
-
-					@Override
-					public boolean onTouch(View v, MotionEvent event) {
-						if (event.getAction() == MotionEvent.ACTION_UP) {
-							Bundle bundle = new Bundle();
-							bundle.putString("user_id", currentScoreboardEntry.getId());
-
-							Intent i = new Intent();
-							i.putExtras(bundle);
-						
-							getActivity().setResult(Activity.RESULT_FIRST_USER , i);
-							getActivity().finish();
-							return false;
-						} else {
-							return true;
-						}
-					}
-					
-				});
+			{
+			    TextView scoreTextView = new TextView(getActivity());
+			    textViewsLinearLayout.addView(scoreTextView);
 
-				index++;
+			    scoreTextView.setText("Score: " + currentScoreboardEntry.getScore());
+			    scoreTextView.setTextAppearance(getActivity(), R.style.ScoreboardPlayerScoreFont);
 			}
+
+			frameLayout.setOnTouchListener(new OnTouchListener() {
+
+				@Override
+				public boolean onTouch(View v, MotionEvent event) {
+					if (event.getAction() == MotionEvent.ACTION_UP) {
+						Bundle bundle = new Bundle();
+						bundle.putString("user_id", currentScoreboardEntry.getId());
+
+						Intent i = new Intent();
+						i.putExtras(bundle);
+					
+						getActivity().setResult(Activity.RESULT_FIRST_USER , i);
+						getActivity().finish();
+						return false;
+					} else {
+						return true;
+					}
+				}
+				
+			});
+
+			index++;
 		}
 	}
 }
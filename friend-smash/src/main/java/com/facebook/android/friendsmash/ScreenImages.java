@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash;
+
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.util.DisplayMetrics;
+import android.view.View;
+import android.widget.ImageView;
+
+import com.facebook.android.friendsmash.image.BitmapBudget;
+import com.facebook.android.friendsmash.image.BitmapDecoder;
+import com.facebook.android.friendsmash.image.BitmapPool;
+
+/**
+ *  The background and title banner every screen is drawn on.  They're the biggest images in the
+ *  app, so rather than each screen decoding its own copies from its layout, they're decoded once,
+ *  no bigger than the screen and the background without an alpha channel, and shared by every
+ *  screen that's showing.  They're decoded from the _land images in landscape, like the layouts
+ *  of that orientation use.  Once no screen is showing they go back to the BitmapPool, so the
+ *  next decode reuses their memory.  Screens apply() them when their views are created and
+ *  release() them when their views are destroyed.  UI thread only
+ */
+public class ScreenImages implements BitmapBudget.Owner {
+
+	private final Resources resources;
+	private final BitmapDecoder bitmapDecoder;
+	private final BitmapBudget bitmapBudget;
+
+	private Bitmap background = null;
+	private Bitmap banner = null;
+
+	// The orientation the images were decoded for
+	private int orientation = Configuration.ORIENTATION_UNDEFINED;
+
+	private int users = 0;
+
+	// The views of the screen layouts drawn on the background
+	private static final int[] BACKGROUND_VIEW_IDS = {
+		R.id.screenBackground,
+		R.id.gameFrame,
+		R.id.gameOverContainer,
+		R.id.progressContainer,
+	};
+
+	ScreenImages(Resources resources, BitmapDecoder bitmapDecoder, BitmapBudget bitmapBudget) {
+		this.resources = resources;
+		this.bitmapDecoder = bitmapDecoder;
+		this.bitmapBudget = bitmapBudget;
+	}
+
+	/**
+	 *  Sets the background and title banner on the views of a screen that show them, which holds
+	 *  on to them until the screen calls release()
+	 */
+	public void apply(View screen) {
+		users++;
+		int currentOrientation = resources.getConfiguration().orientation;
+		if (currentOrientation != orientation) {
+			// The screens of the other orientation may still be drawing them until they're
+			// destroyed, so they can't go back to the pool
+			background = null;
+			banner = null;
+			orientation = currentOrientation;
+		}
+		for (int id : BACKGROUND_VIEW_IDS) {
+			View view = screen.findViewById(id);
+			if (view != null) {
+				setBackground(view);
+			}
+		}
+		ImageView titleBanner = (ImageView) screen.findViewById(R.id.title_banner);
+		if (titleBanner != null) {
+			setBanner(titleBanner);
+		}
+	}
+
+	public void release() {
+		if (users > 0 && --users == 0) {
+			bitmapDecoder.getBitmapPool().put(background);
+			bitmapDecoder.getBitmapPool().put(banner);
+			background = null;
+			banner = null;
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "screen images";
+	}
+
+	/**
+	 *  Returns the bytes of the images decoded
+	 */
+	@Override
+	public int getBitmapBytes() {
+		int byteCount = 0;
+		if (background != null) {
+			byteCount += BitmapPool.getSize(background);
+		}
+		if (banner != null) {
+			byteCount += BitmapPool.getSize(banner);
+		}
+		return byteCount;
+	}
+
+	/**
+	 *  The images are only held while a screen shows them, so there's nothing to let go of
+	 */
+	@Override
+	public void trimToSize(int bytes) {
+	}
+
+	private boolean isLandscape() {
+		return orientation == Configuration.ORIENTATION_LANDSCAPE;
+	}
+
+	@SuppressWarnings("deprecation")
+	private void setBackground(View view) {
+		if (background == null) {
+			DisplayMetrics displayMetrics = resources.getDisplayMetrics();
+			int backgroundId = isLandscape() ? R.drawable.frontscreen_background_land : R.drawable.frontscreen_background;
+			background = bitmapDecoder.decodeResource(resources, backgroundId,
+					displayMetrics.widthPixels, displayMetrics.heightPixels, true);
+			bitmapBudget.onBitmapsAdded();
+		}
+		view.setBackgroundDrawable(new BitmapDrawable(resources, background));
+	}
+
+	private void setBanner(ImageView imageView) {
+		if (banner == null) {
+			int bannerId = isLandscape() ? R.drawable.title_banner_land : R.drawable.title_banner;
+			banner = bitmapDecoder.decodeResource(resources, bannerId,
+					resources.getDisplayMetrics().widthPixels, 0, true);
+			bitmapBudget.onBitmapsAdded();
+		}
+		imageView.setImageDrawable(new BitmapDrawable(resources, banner));
+	}
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ *  All the bundled images of the game - the celebrities, the coin, the heart and the bomb -
+ *  decoded once into a single bitmap, each in a region of its own.  Targets and the HUD draw
+ *  them by region index, so firing an image or updating the HUD never looks up a resource or
+ *  decodes anything.  The images that fly across the screen are scaled to the icon width up front,
+ *  so they're drawn without any further scaling.  Shared by every game, see
+ *  FriendSmashApplication.getSpriteAtlas()
+ */
+public class SpriteAtlas {
+
+	// In the same order as GameFragment's CELEBS
+	private static final int[] CELEB_RESOURCES = {
+		R.drawable.nonfriend_1,
+		R.drawable.nonfriend_2,
+		R.drawable.nonfriend_3,
+		R.drawable.nonfriend_4,
+		R.drawable.nonfriend_5,
+		R.drawable.nonfriend_6,
+		R.drawable.nonfriend_7,
+		R.drawable.nonfriend_8,
+		R.drawable.nonfriend_9,
+		R.drawable.nonfriend_10,
+	};
+
+	public static final int NUM_CELEBS = CELEB_RESOURCES.length;
+
+	// Regions 0 to NUM_CELEBS-1 are the celebrities, followed by these
+	public static final int REGION_COIN = NUM_CELEBS;
+	public static final int REGION_HEART = NUM_CELEBS + 1;
+	public static final int REGION_BOMB = NUM_CELEBS + 2;
+	public static final int NUM_REGIONS = NUM_CELEBS + 3;
+
+	// Regions are packed in rows no wider than this, well within any GPU's maximum texture size
+	private static final int MAX_ATLAS_WIDTH = 1024;
+
+	private final Bitmap atlas;
+	private final Rect[] regions = new Rect[NUM_REGIONS];
+	private final Rect[] centeredBounds = new Rect[NUM_REGIONS];
+	private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+	/**
+	 *  Decodes every image, so only call this once, off the hot path
+	 *
+	 *  @param iconWidth Size of the images that fly across the screen
+	 */
+	SpriteAtlas(Resources resources, int iconWidth) {
+		Bitmap[] images = new Bitmap[NUM_REGIONS];
+		int[] widths = new int[NUM_REGIONS];
+		int[] heights = new int[NUM_REGIONS];
+		for (int i = 0; i < NUM_REGIONS; i++) {
+			images[i] = BitmapFactory.decodeResource(resources, getResource(i));
+			if (i == REGION_HEART || i == REGION_BOMB) {
+				// HUD images are shown at their own size
+				widths[i] = images[i].getWidth();
+				heights[i] = images[i].getHeight();
+			} else {
+				// Fit the image in an icon, like an ImageView with the default FIT_CENTER
+				float fitScale = Math.min((float) iconWidth / images[i].getWidth(), (float) iconWidth / images[i].getHeight());
+				widths[i] = Math.max(1, Math.round(images[i].getWidth() * fitScale));
+				heights[i] = Math.max(1, Math.round(images[i].getHeight() * fitScale));
+			}
+		}
+
+		// Simple shelf packing, left to right and then top to bottom
+		int atlasWidth = 0;
+		int atlasHeight = 0;
+		int x = 0;
+		int rowHeight = 0;
+		for (int i = 0; i < NUM_REGIONS; i++) {
+			if (x > 0 && x + widths[i] > MAX_ATLAS_WIDTH) {
+				atlasHeight += rowHeight;
+				x = 0;
+				rowHeight = 0;
+			}
+			regions[i] = new Rect(x, atlasHeight, x + widths[i], atlasHeight + heights[i]);
+			centeredBounds[i] = new Rect(-widths[i]/2, -heights[i]/2, widths[i] - widths[i]/2, heights[i] - heights[i]/2);
+			x += widths[i];
+			rowHeight = Math.max(rowHeight, heights[i]);
+			atlasWidth = Math.max(atlasWidth, x);
+		}
+		atlasHeight += rowHeight;
+
+		atlas = Bitmap.createBitmap(atlasWidth, atlasHeight, Bitmap.Config.ARGB_8888);
+		Canvas canvas = new Canvas(atlas);
+		for (int i = 0; i < NUM_REGIONS; i++) {
+			canvas.drawBitmap(images[i], null, regions[i], paint);
+			images[i].recycle();
+		}
+	}
+
+	private static int getResource(int region) {
+		if (region == REGION_COIN) {
+			return R.drawable.coin;
+		} else if (region == REGION_HEART) {
+			return R.drawable.heart_red;
+		} else if (region == REGION_BOMB) {
+			return R.drawable.bomb_in_game;
+		} else {
+			return CELEB_RESOURCES[region];
+		}
+	}
+
+	public int getRegionWidth(int region) {
+		return regions[region].width();
+	}
+
+	public int getRegionHeight(int region) {
+		return regions[region].height();
+	}
+
+	/**
+	 *  Returns the bytes of the atlas bitmap
+	 */
+	public int getByteCount() {
+		return atlas.getRowBytes() * atlas.getHeight();
+	}
+
+	/**
+	 *  Draws the given region with its centre at the origin of the canvas
+	 */
+	public void drawCentered(Canvas canvas, int region) {
+		canvas.drawBitmap(atlas, regions[region], centeredBounds[region], paint);
+	}
+
+	/**
+	 *  Draws the given region into the given bounds
+	 */
+	public void draw(Canvas canvas, int region, Rect bounds) {
+		canvas.drawBitmap(atlas, regions[region], bounds, paint);
+	}
+
+	/**
+	 *  Returns a new Drawable showing the given region, for ImageViews.  It shares the atlas, so
+	 *  creating one doesn't decode or copy anything
+	 */
+	public Drawable newDrawable(int region) {
+		return new RegionDrawable(region);
+	}
+
+	private class RegionDrawable extends Drawable {
+
+		private final int region;
+
+		RegionDrawable(int region) {
+			this.region = region;
+		}
+
+		@Override
+		public void draw(Canvas canvas) {
+			SpriteAtlas.this.draw(canvas, region, getBounds());
+		}
+
+		@Override
+		public int getIntrinsicWidth() {
+			return getRegionWidth(region);
+		}
+
+		@Override
+		public int getIntrinsicHeight() {
+			return getRegionHeight(region);
+		}
+
+		@Override
+		public void setAlpha(int alpha) {
+		}
+
+		@Override
+		public void setColorFilter(ColorFilter colorFilter) {
+		}
+
+		@Override
+		public int getOpacity() {
+			return PixelFormat.TRANSLUCENT;
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import com.facebook.android.friendsmash.game.Sprite;
+import com.facebook.android.friendsmash.game.SpriteMotion;
+
+/**
+ *  A target that isn't a View of its own, but is drawn together with all the other targets by
+ *  SpriteTextureView.  It is drawn wherever the simulation has moved its Sprite
+ */
+public class SpriteTarget implements GameTarget {
+
+	private final int width;
+	private final int height;
+
+	private Sprite sprite;
+
+	// Either the image of a friend, or a region of the atlas
+	private Bitmap image;
+	private SpriteAtlas spriteAtlas;
+	private int region = -1;
+
+	// Where the image is drawn, around the middle of the sprite
+	private final Rect imageBounds = new Rect();
+	private final Paint imagePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+	public SpriteTarget(int size) {
+		this.width = size;
+		this.height = size;
+	}
+
+	@Override
+	public void bind(Sprite sprite) {
+		this.sprite = sprite;
+	}
+
+	@Override
+	public void recycle() {
+		sprite = null;
+		image = null;
+		spriteAtlas = null;
+		region = -1;
+	}
+
+	@Override
+	public Sprite getSprite() {
+		return sprite;
+	}
+
+	@Override
+	public void setImageBitmap(Bitmap bitmap) {
+		// Fit the image in the middle of the sprite, like an ImageView with the default FIT_CENTER.
+		// The sprites of friends are made at exactly this size, see AvatarSprites, so they're
+		// drawn unscaled
+		float fitScale = Math.min((float) width / bitmap.getWidth(), (float) height / bitmap.getHeight());
+		int fitWidth = Math.round(bitmap.getWidth() * fitScale);
+		int fitHeight = Math.round(bitmap.getHeight() * fitScale);
+		imageBounds.set(-fitWidth/2, -fitHeight/2, fitWidth - fitWidth/2, fitHeight - fitHeight/2);
+		image = bitmap;
+		spriteAtlas = null;
+		region = -1;
+	}
+
+	@Override
+	public void setImageRegion(SpriteAtlas spriteAtlas, int region) {
+		this.spriteAtlas = spriteAtlas;
+		this.region = region;
+		image = null;
+	}
+
+	@Override
+	public void update() {
+		// Nothing to do, the sprite is drawn straight from its Sprite in draw()
+	}
+
+	private boolean isShown() {
+		return sprite != null && sprite.isVisible() && sprite.getMotion().isStarted();
+	}
+
+	/**
+	 *  Draws the sprite where the last frame left it
+	 */
+	void draw(Canvas canvas) {
+		if ((image == null && spriteAtlas == null) || !isShown()) {
+			return;
+		}
+
+		SpriteMotion motion = sprite.getMotion();
+		canvas.save();
+		canvas.translate(motion.getX() + width/2f, motion.getY() + height/2f);
+		canvas.rotate(motion.getRotation());
+		canvas.scale(motion.getScale(), motion.getScale());
+		if (spriteAtlas != null) {
+			// Already the right size, see SpriteAtlas
+			spriteAtlas.drawCentered(canvas, region);
+		} else {
+			canvas.drawBitmap(image, null, imageBounds, imagePaint);
+		}
+		canvas.restore();
+	}
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.view.TextureView;
+
+import java.util.ArrayList;
+
+/**
+ *  Draws all the targets flying across the game screen onto a single surface, in one pass per
+ *  frame, instead of measuring, laying out and drawing a separate UserImageView for each of them.
+ *  GameFragment calls drawFrame() from its GameLoop once the sprites have been advanced.  The view
+ *  doesn't handle touches itself: GameFragment passes them to the GameSimulation to hit test
+ */
+public class SpriteTextureView extends TextureView {
+
+	// Sprites in drawing order, so the last one is on top
+	private final ArrayList<SpriteTarget> spriteTargets = new ArrayList<SpriteTarget>();
+
+	public SpriteTextureView(Context context) {
+		super(context);
+
+		setOpaque(false);
+	}
+
+	void addSprite(SpriteTarget spriteTarget) {
+		spriteTargets.add(spriteTarget);
+	}
+
+	void removeSprite(SpriteTarget spriteTarget) {
+		spriteTargets.remove(spriteTarget);
+	}
+
+	void bringSpriteToFront(SpriteTarget spriteTarget) {
+		if (spriteTargets.remove(spriteTarget)) {
+			spriteTargets.add(spriteTarget);
+		}
+	}
+
+	/**
+	 *  Draws every sprite in its current state, if the surface is ready
+	 */
+	void drawFrame() {
+		if (!isAvailable()) {
+			return;
+		}
+
+		Canvas canvas = lockCanvas();
+		if (canvas != null) {
+			try {
+				canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+				for (int i = 0; i < spriteTargets.size(); i++) {
+					spriteTargets.get(i).draw(canvas);
+				}
+			} finally {
+				unlockCanvasAndPost(canvas);
+			}
+		}
+	}
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash;
+
+import android.os.SystemClock;
+
+import com.facebook.FacebookRequestError;
+import com.facebook.GraphResponse;
+import com.facebook.android.friendsmash.image.AvatarLoader;
+import com.facebook.android.friendsmash.integration.GameRequest;
+import com.facebook.android.friendsmash.integration.GraphAPICall;
+import com.facebook.android.friendsmash.integration.GraphAPICallback;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+/**
+ *  Works out who the next game will have the user smash before the game is started, and loads
+ *  their first name and picture, so the game can start firing straight away.  That's a friend
+ *  picked at random while the home screen is idle, or the sender of the request or the friend of
+ *  the post the app was deep linked through, whose details GameFragment then picks up from here
+ *  rather than fetching them again.  Targets nobody picks up are forgotten after a while, so
+ *  deep links that never lead to a game don't pile up.  UI thread only
+ */
+public class TargetPrefetcher {
+
+	/**
+	 *  Told on the UI thread once a deep linked target's details are known
+	 */
+	public interface Callback {
+		void onTargetResolved(String userId, String firstName);
+
+		void onTargetError(FacebookRequestError error);
+	}
+
+	// How long a resolved target is kept for a game that hasn't asked for it yet
+	private static final long UNCLAIMED_TARGET_TTL = 5 * 60 * 1000;
+
+	// Most resolved targets kept for games that haven't asked for them yet
+	private static final int MAX_UNCLAIMED_TARGETS = 10;
+
+	private static class Target {
+		boolean resolved = false;
+		long resolvedTime;
+		String userId;
+		String firstName;
+		FacebookRequestError error;
+		final ArrayList<Callback> callbacks = new ArrayList<Callback>();
+	}
+
+	private final AvatarLoader avatarLoader;
+	private final Random random = new Random();
+
+	// Deep linked targets being or already resolved, by request or user id, oldest first
+	private final LinkedHashMap<String, Target> targets = new LinkedHashMap<String, Target>();
+
+	private String nextFriendId = null;
+
+	TargetPrefetcher(AvatarLoader avatarLoader) {
+		this.avatarLoader = avatarLoader;
+	}
+
+	/**
+	 *  Picks the friend the next game will have the user smash, unless one of the given friends has
+	 *  already been picked, and starts making their sprites from their picture
+	 */
+	public void prefetchRandomFriend(JSONArray friends) {
+		if (friends == null || friends.length() == 0) {
+			return;
+		}
+		if (nextFriendId != null && indexOfFriend(friends, nextFriendId) != -1) {
+			return;
+		}
+		nextFriendId = friends.optJSONObject(random.nextInt(friends.length())).optString("id");
+		avatarLoader.prefetchSprites(nextFriendId);
+	}
+
+	/**
+	 *  Returns the index among the given friends of the friend picked for the next game, or -1 if
+	 *  none of them was, and forgets it, so that the game after that gets another one
+	 */
+	public int takeNextFriendIndex(JSONArray friends) {
+		int index = nextFriendId != null ? indexOfFriend(friends, nextFriendId) : -1;
+		nextFriendId = null;
+		return index;
+	}
+
+	private static int indexOfFriend(JSONArray friends, String friendId) {
+		for (int i = 0; i < friends.length(); i++) {
+			JSONObject friend = friends.optJSONObject(i);
+			if (friend != null && friendId.equals(friend.optString("id"))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 *  Starts resolving the sender of a request, and then loading their picture
+	 */
+	public void prefetchRequestTarget(String requestId) {
+		final String key = "request_" + requestId;
+		removeUnclaimedTargets();
+		if (targets.containsKey(key)) {
+			return;
+		}
+		targets.put(key, new Target());
+		GameRequest.getUserDataFromRequest(requestId, new TargetCallback(key));
+	}
+
+	/**
+	 *  Starts fetching the first name of a user, and loading their picture
+	 */
+	public void prefetchUserTarget(String userId) {
+		final String key = "user_" + userId;
+		removeUnclaimedTargets();
+		if (targets.containsKey(key)) {
+			return;
+		}
+		targets.put(key, new Target());
+		GraphAPICall userCall = GraphAPICall.callUser(userId, "first_name", new TargetCallback(key));
+		userCall.executeBatchedAsync();
+	}
+
+	/**
+	 *  Tells the callback who sent the request, once that's known
+	 */
+	public void getRequestTarget(String requestId, Callback callback) {
+		prefetchRequestTarget(requestId);
+		addCallback("request_" + requestId, callback);
+	}
+
+	/**
+	 *  Tells the callback the first name of the user, once that's known
+	 */
+	public void getUserTarget(String userId, Callback callback) {
+		prefetchUserTarget(userId);
+		addCallback("user_" + userId, callback);
+	}
+
+	private void addCallback(String key, Callback callback) {
+		Target target = targets.get(key);
+		target.callbacks.add(callback);
+		if (target.resolved) {
+			deliver(key, target);
+		}
+	}
+
+	/**
+	 *  Forgets the resolved targets nobody has asked for that have expired, and the oldest of the
+	 *  rest while there are more than MAX_UNCLAIMED_TARGETS of them
+	 */
+	private void removeUnclaimedTargets() {
+		long now = SystemClock.elapsedRealtime();
+		int numUnclaimed = 0;
+		Iterator<Target> iterator = targets.values().iterator();
+		while (iterator.hasNext()) {
+			Target target = iterator.next();
+			if (target.resolved && target.callbacks.isEmpty()) {
+				if (now - target.resolvedTime > UNCLAIMED_TARGET_TTL) {
+					iterator.remove();
+				} else {
+					numUnclaimed++;
+				}
+			}
+		}
+		iterator = targets.values().iterator();
+		while (numUnclaimed > MAX_UNCLAIMED_TARGETS && iterator.hasNext()) {
+			Target target = iterator.next();
+			if (target.resolved && target.callbacks.isEmpty()) {
+				iterator.remove();
+				numUnclaimed--;
+			}
+		}
+	}
+
+	private void deliver(String key, Target target) {
+		// Whoever is waiting takes the target, so the next deep link through it is fetched afresh
+		targets.remove(key);
+		for (Callback callback : target.callbacks) {
+			if (target.error != null) {
+				callback.onTargetError(target.error);
+			} else {
+				callback.onTargetResolved(target.userId, target.firstName);
+			}
+		}
+	}
+
+	private class TargetCallback implements GraphAPICallback {
+
+		private final String key;
+
+		TargetCallback(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public void handleResponse(GraphResponse response) {
+			Target target = targets.get(key);
+			if (target == null) {
+				// Already delivered, or forgotten
+				return;
+			}
+			target.resolved = true;
+			target.resolvedTime = SystemClock.elapsedRealtime();
+			target.userId = response.getJSONObject().optString("id");
+			target.firstName = response.getJSONObject().optString("first_name");
+			avatarLoader.prefetchSprites(target.userId);
+			if (!target.callbacks.isEmpty()) {
+				deliver(key, target);
+			}
+		}
+
+		@Override
+		public void handleError(FacebookRequestError error) {
+			Target target = targets.get(key);
+			if (target == null) {
+				return;
+			}
+			target.resolved = true;
+			target.resolvedTime = SystemClock.elapsedRealtime();
+			target.error = error;
+			if (!target.callbacks.isEmpty()) {
+				deliver(key, target);
+			}
+		}
+	}
+}
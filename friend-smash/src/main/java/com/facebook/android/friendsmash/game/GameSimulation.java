@@ -0,0 +1,477 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.game;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ *  The rules of a game of Friend Smash, without any Android dependencies: when images are fired
+ *  and what they show, how smashing them scores, how lives are lost and what bombs do.  All
+ *  randomness comes from a single generator seeded in the constructor and all times come from
+ *  the Clock (or the frame times passed to advance()), so the same seed, clock and inputs always
+ *  play the same game.  GameFragment drives it from its GameLoop and draws the sprites, while
+ *  HeadlessGame plays it without a screen.  Not thread safe: only ever use it from one thread
+ */
+public class GameSimulation {
+
+	/**
+	 *  Source of the current time in milliseconds, e.g. SystemClock.uptimeMillis() on a device
+	 */
+	public interface Clock {
+		long now();
+	}
+
+	/**
+	 *  Told about everything that changes what should be on the screen
+	 */
+	public interface Listener {
+		void onSpriteSpawned(Sprite sprite);
+
+		/**
+		 *  The sprite is recycled as soon as this returns, so don't hold on to it
+		 */
+		void onSpriteRemoved(Sprite sprite);
+
+		/**
+		 *  The sprite is scaling up to cover the screen, and the game ends once it has
+		 */
+		void onWrongSpriteSmashed(Sprite sprite);
+
+		void onScoreChanged(int score);
+
+		void onLivesChanged(int lives);
+
+		void onBombsRemainingChanged(int bombsRemaining);
+
+		void onGameOver();
+	}
+
+	public static final int CELEB_FREQUENCY = 5;
+	public static final int COIN_FREQUENCY = 8;
+	public static final int NUM_LIVES = 3;
+
+	// Time between firing one image and the next, not counting the extra images
+	public static final long SPAWN_INTERVAL = 700;
+
+	// Never keep more free sprites around than this
+	private static final int MAX_FREE_SPRITES = 32;
+
+	private final Random randomGenerator;
+	private final Clock clock;
+	private final int numCelebs;
+
+	private Listener listener;
+
+	private int iconWidth;
+	private int screenWidth;
+	private int screenHeight;
+
+	// Where the sprites were as of the last frame, for hit testing touches
+	private SpriteGrid spriteGrid;
+
+	private boolean isSocialMode = false;
+	private int celebToSmashIndex = -1;
+
+	// When to fire the next images
+	private final SpawnScheduler spawnScheduler = new SpawnScheduler();
+	private boolean firstImageFired = false;
+
+	private int score = 0;
+	private int lives = NUM_LIVES;
+	private int bombsRemaining;
+	private int bombsUsed = 0;
+	private int coinsCollected = 0;
+	private boolean gameOver = false;
+
+	// Once set, the game only waits for the wrongly smashed image to finish scaling up
+	private boolean wrongImageSmashed = false;
+
+	// Bombs, pauses and wrong smashes affect every sprite in flight.  Rather than touching each of
+	// them, they start a new generation: sprites fired in a generation before voidGeneration are
+	// void, and those fired before hiddenGeneration are hidden (and reclaimed on the next frame)
+	private int generation = 0;
+	private int voidGeneration = 0;
+	private int hiddenGeneration = 0;
+
+	// Sprites in the order they were fired, so the last one is on top
+	private final ArrayList<Sprite> sprites = new ArrayList<Sprite>();
+	private final ArrayList<Sprite> freeSprites = new ArrayList<Sprite>();
+
+	/**
+	 *  @param seed Seed of every random decision of the game
+	 *  @param clock Time base of the game
+	 *  @param numCelebs Number of celebrity images to choose from
+	 *  @param bombsRemaining Bombs the user starts the game with
+	 */
+	public GameSimulation(long seed, Clock clock, int numCelebs, int bombsRemaining) {
+		this.randomGenerator = new Random(seed);
+		this.clock = clock;
+		this.numCelebs = numCelebs;
+		this.bombsRemaining = bombsRemaining;
+	}
+
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 *  Sets the size of the images and of the screen they fly across
+	 */
+	public void setPlayfield(int iconWidth, int screenWidth, int screenHeight) {
+		this.iconWidth = iconWidth;
+		this.screenWidth = screenWidth;
+		this.screenHeight = screenHeight;
+		this.spriteGrid = new SpriteGrid(iconWidth, screenWidth, screenHeight);
+	}
+
+	/**
+	 *  Sets who has to be smashed: a friend in the social version, or the celebrity with the given
+	 *  index otherwise
+	 */
+	public void setTarget(boolean isSocialMode, int celebToSmashIndex) {
+		this.isSocialMode = isSocialMode;
+		this.celebToSmashIndex = isSocialMode ? -1 : celebToSmashIndex;
+	}
+
+	/**
+	 *  Picks a random index below count, from the game's seeded generator
+	 */
+	public int chooseRandomIndex(int count) {
+		return randomGenerator.nextInt(count);
+	}
+
+	/**
+	 *  Fires the first image, and then another one every SPAWN_INTERVAL
+	 */
+	public void startFiring() {
+		if (!gameOver) {
+			spawnImage(false, clock.now());
+		}
+	}
+
+	/**
+	 *  Stops firing images, and makes the ones still in flight count for nothing
+	 */
+	public void stopFiring() {
+		voidGeneration = ++generation;
+		spawnScheduler.cancelAll();
+	}
+
+	/**
+	 *  Moves the game on to the given time: fires the next images if they're due, moves every
+	 *  image along, and loses a life for every image that should have been smashed but got away
+	 */
+	public void advance(long now) {
+		if (gameOver) {
+			return;
+		}
+
+		spawnScheduler.onFrame(now);
+		if (spawnScheduler.takeRegularSpawn(now, sprites.size())) {
+			spawnImage(false, now);
+		}
+		if (spawnScheduler.takeBonusSpawn(now, sprites.size())) {
+			spawnImage(true, now);
+		}
+
+		// Sprites that are done with are dropped from the list as we go, by moving the ones that are
+		// kept down, so removing any number of them costs a single pass
+		int count = sprites.size();
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			Sprite sprite = sprites.get(i);
+			if (gameOver || advanceSprite(sprite, now)) {
+				sprites.set(kept++, sprite);
+			} else {
+				recycle(sprite);
+			}
+		}
+		for (int i = count - 1; i >= kept; i--) {
+			sprites.remove(i);
+		}
+
+		if (spriteGrid != null) {
+			spriteGrid.rebuild(sprites, iconWidth);
+		}
+	}
+
+	/**
+	 *  Returns the sprite a touch at the given point would smash, or null if there's none
+	 */
+	public Sprite findSpriteAt(float x, float y) {
+		return spriteGrid != null ? spriteGrid.findSpriteAt(x, y, iconWidth) : null;
+	}
+
+	/**
+	 *  Called when the user touches the screen at the given point, once for every finger that
+	 *  goes down.  Returns whether anything was smashed
+	 */
+	public boolean smashAt(float x, float y) {
+		Sprite sprite = findSpriteAt(x, y);
+		if (sprite != null) {
+			smash(sprite);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 *  Called when the user smashes the given sprite
+	 */
+	public void smash(Sprite sprite) {
+		// Sprites are hidden once they're removed, so this also ignores the ones that are gone.
+		// After a wrong smash nothing counts any more, and smashing the image again mustn't
+		// restart its scale up and push back the end of the game
+		if (gameOver || wrongImageSmashed || !sprite.isVisible()) {
+			return;
+		}
+
+		if (sprite.shouldSmash()) {
+			if (sprite.isCoin()) {
+				coinsCollected++;
+			} else {
+				setScore(score + 1 + sprite.getExtraPoints());
+			}
+
+			// Nothing is left to animate, so the image can go straight back to the pool
+			remove(sprite);
+		} else {
+			wrongImageSmashed(sprite);
+		}
+	}
+
+	/**
+	 *  Called when the user touches the bomb button: clears the screen if there's a bomb left
+	 */
+	public void detonateBomb() {
+		// Nothing is left to clear after a wrong smash, and hiding the image that's scaling up would
+		// reclaim it before it ends the game
+		if (gameOver || wrongImageSmashed) {
+			return;
+		}
+
+		if (bombsRemaining > 0) {
+			// Hides and voids every sprite in flight, in constant time
+			generation++;
+			voidGeneration = generation;
+			hiddenGeneration = generation;
+
+			bombsUsed++;
+
+			setBombsRemaining(bombsRemaining - 1);
+		} else {
+			setBombsRemaining(0);
+		}
+	}
+
+	private void wrongImageSmashed(Sprite sprite) {
+		long now = clock.now();
+		SpriteMotion motion = sprite.getMotion();
+		wrongImageSmashed = true;
+		sprite.setWrongImageSmashed(true);
+		motion.stopMovement(now);
+		spawnScheduler.cancelAll();
+
+		// Hide all the other sprites
+		hiddenGeneration = ++generation;
+		sprite.setGeneration(generation);
+
+		// Ends the game once the image has finished scaling up, see advance()
+		motion.startScaleUp(now);
+
+		// Keep the image on top
+		if (sprites.remove(sprite)) {
+			sprites.add(sprite);
+		}
+
+		if (listener != null) {
+			listener.onWrongSpriteSmashed(sprite);
+		}
+	}
+
+	/**
+	 *  Moves a sprite along, returning false if it's done with and should be removed
+	 */
+	private boolean advanceSprite(Sprite sprite, long now) {
+		if (!sprite.isVisible()) {
+			// Hidden by a bomb or a wrong smash, so it can neither be smashed nor cost a life any
+			// more: reclaim it now instead of flying it off the screen unseen
+			return false;
+		}
+
+		SpriteMotion motion = sprite.getMotion();
+		motion.advance(now);
+
+		if (motion.isScaleUpOver(now)) {
+			motion.stopRotation(now);
+			setLives(0);
+		} else if (motion.isFlightOver(now) && !sprite.isWrongImageSmashed()) {
+			if (sprite.shouldSmash() && !sprite.isVoid() && !sprite.isCoin()) {
+				// Image is still visible, so user didn't smash it and they should have done (and it isn't void), so decrement the lives by one
+				setLives(lives - 1);
+			}
+			return false;
+		}
+		return true;
+	}
+
+	private void spawnImage(boolean extraImage, long now) {
+		boolean shouldSmash = true;
+		boolean isCoin = false;
+		if (firstImageFired) {
+			if (randomGenerator.nextInt(CELEB_FREQUENCY) == 0) {
+				shouldSmash = false;
+			} else if (randomGenerator.nextInt(COIN_FREQUENCY) == 0) {
+				isCoin = true;
+			}
+		} else {
+			firstImageFired = true;
+		}
+
+		int celebIndex = -1;
+		if (!shouldSmash) {
+			do {
+				celebIndex = randomGenerator.nextInt(numCelebs);
+			} while (celebIndex == celebToSmashIndex);
+		} else if (!isCoin) {
+			celebIndex = celebToSmashIndex;
+		}
+
+		Sprite sprite = freeSprites.isEmpty() ? new Sprite(this) : freeSprites.remove(freeSprites.size() - 1);
+		sprite.reset(shouldSmash, isCoin, celebIndex, generation);
+		if (extraImage && shouldSmash && !isCoin && isSocialMode) {
+			sprite.setExtraPoints(1);
+		}
+		sprite.setSpawnTime(now);
+		sprite.getMotion().start(iconWidth, iconWidth, screenWidth, screenHeight, randomGenerator, now);
+		sprites.add(sprite);
+
+		if (!extraImage) {
+			spawnScheduler.scheduleRegularSpawn(now + SPAWN_INTERVAL);
+		}
+
+		if (listener != null) {
+			listener.onSpriteSpawned(sprite);
+		}
+	}
+
+	private void remove(Sprite sprite) {
+		if (sprites.remove(sprite)) {
+			recycle(sprite);
+		}
+	}
+
+	/**
+	 *  Gives a sprite that's no longer in the list of sprites back to the pool
+	 */
+	private void recycle(Sprite sprite) {
+		sprite.setRemoved();
+
+		if (listener != null) {
+			listener.onSpriteRemoved(sprite);
+		}
+
+		sprite.setTag(null);
+		if (freeSprites.size() < MAX_FREE_SPRITES) {
+			freeSprites.add(sprite);
+		}
+	}
+
+	private void setScore(int score) {
+		this.score = score;
+
+		if (listener != null) {
+			listener.onScoreChanged(score);
+		}
+
+		if (score > 0 && score % 10 == 0) {
+			// Fired over the next frames by advance(), not all at once
+			spawnScheduler.addBonusSpawns(score/20);
+		}
+	}
+
+	private void setLives(int lives) {
+		this.lives = Math.max(0, lives);
+
+		if (listener != null) {
+			listener.onLivesChanged(this.lives);
+		}
+
+		if (this.lives <= 0) {
+			gameOver = true;
+			spawnScheduler.cancelAll();
+
+			if (listener != null) {
+				listener.onGameOver();
+			}
+		}
+	}
+
+	/**
+	 *  Sets the bombs left, e.g. when the user brought some into the game
+	 */
+	public void setBombsRemaining(int bombsRemaining) {
+		this.bombsRemaining = bombsRemaining;
+
+		if (listener != null) {
+			listener.onBombsRemainingChanged(bombsRemaining);
+		}
+	}
+
+	int getVoidGeneration() {
+		return voidGeneration;
+	}
+
+	int getHiddenGeneration() {
+		return hiddenGeneration;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public int getLives() {
+		return lives;
+	}
+
+	public int getBombsRemaining() {
+		return bombsRemaining;
+	}
+
+	public int getBombsUsed() {
+		return bombsUsed;
+	}
+
+	public int getCoinsCollected() {
+		return coinsCollected;
+	}
+
+	public boolean isGameOver() {
+		return gameOver;
+	}
+
+	/**
+	 *  The sprites currently in flight, bottom first.  Don't modify the list
+	 */
+	public ArrayList<Sprite> getSprites() {
+		return sprites;
+	}
+}
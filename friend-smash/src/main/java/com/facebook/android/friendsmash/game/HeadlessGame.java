@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.game;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ *  Plays whole games of GameSimulation without a screen, as fast as the CPU allows, against a
+ *  simple model of a player.  The game is stepped at a fixed frame interval on a clock of its own,
+ *  so the same seed and Player always give the same Result - useful for balancing the game rules,
+ *  for checking that a change to them doesn't change how games play out, and for benchmarks
+ */
+public class HeadlessGame {
+
+	/**
+	 *  Clock that only moves when told to
+	 */
+	public static class ManualClock implements GameSimulation.Clock {
+
+		private long time;
+
+		public ManualClock(long time) {
+			this.time = time;
+		}
+
+		@Override
+		public long now() {
+			return time;
+		}
+
+		public void setTime(long time) {
+			this.time = time;
+		}
+	}
+
+	/**
+	 *  How the simulated player plays: every image is looked at once, reactionTime after it was
+	 *  fired, and is then smashed (or not) with the given probabilities
+	 */
+	public static class Player {
+
+		final long reactionTime;
+		final float hitRate;
+		final float wrongSmashRate;
+		final int bombThreshold;
+
+		/**
+		 *  @param reactionTime Time between an image being fired and the player deciding on it
+		 *  @param hitRate Probability of smashing an image that should be smashed (or a coin)
+		 *  @param wrongSmashRate Probability of smashing an image that shouldn't be smashed
+		 *  @param bombThreshold Number of images to smash in flight at which the player uses a
+		 *  bomb, or 0 to never use one
+		 */
+		public Player(long reactionTime, float hitRate, float wrongSmashRate, int bombThreshold) {
+			this.reactionTime = reactionTime;
+			this.hitRate = hitRate;
+			this.wrongSmashRate = wrongSmashRate;
+			this.bombThreshold = bombThreshold;
+		}
+	}
+
+	/**
+	 *  How a game ended
+	 */
+	public static class Result {
+
+		public final int score;
+		public final int coinsCollected;
+		public final int bombsUsed;
+		public final int spritesSpawned;
+		public final int frames;
+		public final long gameTime;
+		public final boolean gameOver;
+
+		Result(int score, int coinsCollected, int bombsUsed, int spritesSpawned, int frames, long gameTime, boolean gameOver) {
+			this.score = score;
+			this.coinsCollected = coinsCollected;
+			this.bombsUsed = bombsUsed;
+			this.spritesSpawned = spritesSpawned;
+			this.frames = frames;
+			this.gameTime = gameTime;
+			this.gameOver = gameOver;
+		}
+
+		@Override
+		public String toString() {
+			return "score=" + score + " coins=" + coinsCollected + " bombsUsed=" + bombsUsed +
+					" spawned=" + spritesSpawned + " frames=" + frames + " gameTime=" + gameTime +
+					(gameOver ? "" : " (stopped)");
+		}
+	}
+
+	// Same as a 60fps display
+	public static final long FRAME_INTERVAL = 16;
+
+	private final int iconWidth;
+	private final int screenWidth;
+	private final int screenHeight;
+	private final int numCelebs;
+	private final int numBombs;
+
+	public HeadlessGame(int iconWidth, int screenWidth, int screenHeight, int numCelebs, int numBombs) {
+		this.iconWidth = iconWidth;
+		this.screenWidth = screenWidth;
+		this.screenHeight = screenHeight;
+		this.numCelebs = numCelebs;
+		this.numBombs = numBombs;
+	}
+
+	/**
+	 *  Plays a game of smashing a celebrity until it's over, or until maxGameTime has passed
+	 */
+	public Result play(long seed, Player player, long maxGameTime) {
+		final ManualClock clock = new ManualClock(0);
+		final Random playerRandomGenerator = new Random(~seed);
+		final HashSet<Sprite> decidedSprites = new HashSet<Sprite>();
+		final int[] spritesSpawned = new int[1];
+
+		GameSimulation simulation = new GameSimulation(seed, clock, numCelebs, numBombs);
+		simulation.setPlayfield(iconWidth, screenWidth, screenHeight);
+		simulation.setTarget(false, simulation.chooseRandomIndex(numCelebs));
+		simulation.setListener(new GameSimulation.Listener() {
+			@Override
+			public void onSpriteSpawned(Sprite sprite) {
+				spritesSpawned[0]++;
+			}
+
+			@Override
+			public void onSpriteRemoved(Sprite sprite) {
+				decidedSprites.remove(sprite);
+			}
+
+			@Override
+			public void onWrongSpriteSmashed(Sprite sprite) {
+			}
+
+			@Override
+			public void onScoreChanged(int score) {
+			}
+
+			@Override
+			public void onLivesChanged(int lives) {
+			}
+
+			@Override
+			public void onBombsRemainingChanged(int bombsRemaining) {
+			}
+
+			@Override
+			public void onGameOver() {
+			}
+		});
+
+		simulation.startFiring();
+
+		int frames = 0;
+		long now = 0;
+		while (!simulation.isGameOver() && now < maxGameTime) {
+			now += FRAME_INTERVAL;
+			clock.setTime(now);
+			simulation.advance(now);
+			frames++;
+
+			if (!simulation.isGameOver()) {
+				playFrame(simulation, player, playerRandomGenerator, decidedSprites, now);
+			}
+		}
+
+		return new Result(simulation.getScore(), simulation.getCoinsCollected(), simulation.getBombsUsed(),
+				spritesSpawned[0], frames, now, simulation.isGameOver());
+	}
+
+	private void playFrame(GameSimulation simulation, Player player, Random playerRandomGenerator,
+			HashSet<Sprite> decidedSprites, long now) {
+		ArrayList<Sprite> sprites = simulation.getSprites();
+
+		if (player.bombThreshold > 0 && simulation.getBombsRemaining() > 0) {
+			int targetsInFlight = 0;
+			for (int i = 0; i < sprites.size(); i++) {
+				Sprite sprite = sprites.get(i);
+				if (sprite.isVisible() && sprite.shouldSmash() && !sprite.isCoin() && !sprite.isVoid()) {
+					targetsInFlight++;
+				}
+			}
+			if (targetsInFlight >= player.bombThreshold) {
+				simulation.detonateBomb();
+				return;
+			}
+		}
+
+		// Smashing removes sprites, and can fire extra ones at the end of the list
+		for (int i = sprites.size() - 1; i >= 0; i--) {
+			if (i >= sprites.size()) {
+				continue;
+			}
+			Sprite sprite = sprites.get(i);
+			if (!sprite.isVisible() || now - sprite.getSpawnTime() < player.reactionTime || !decidedSprites.add(sprite)) {
+				continue;
+			}
+
+			float smashRate = sprite.shouldSmash() ? player.hitRate : player.wrongSmashRate;
+			if (playerRandomGenerator.nextFloat() < smashRate) {
+				simulation.smash(sprite);
+				if (sprite.isWrongImageSmashed()) {
+					// Everything else is hidden now, and the game ends once the image has scaled up
+					return;
+				}
+			}
+		}
+	}
+}
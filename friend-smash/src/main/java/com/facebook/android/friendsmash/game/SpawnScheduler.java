@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.game;
+
+/**
+ *  Decides when GameSimulation fires its images.  Regular images are fired every SPAWN_INTERVAL,
+ *  while the extra images earned by scoring are queued and released one at a time rather than
+ *  all in the same frame.  No image is fired while the number of sprites in flight is at the cap:
+ *  it just waits until one is gone.  The cap, and the spacing of the extra images, adapt to how
+ *  long frames are actually taking, so a device that's struggling gets fewer images at once
+ *  instead of dropped frames.  Frame times are whatever GameSimulation.advance() is called with,
+ *  so a headless game with a fixed frame interval always schedules the same way
+ */
+class SpawnScheduler {
+
+	static final int MAX_LIVE_SPRITES = 24;
+	static final int MIN_LIVE_SPRITES = 8;
+
+	static final long MIN_BONUS_SPAWN_INTERVAL = 50;
+	static final long MAX_BONUS_SPAWN_INTERVAL = 400;
+
+	// Average frame times above this mean there's no headroom left at 60fps
+	static final float SLOW_FRAME_TIME = 22f;
+
+	// Average frame times below this mean there's headroom for more sprites
+	static final float FAST_FRAME_TIME = 18f;
+
+	// Consecutive fast frames before the cap is raised again
+	static final int FAST_FRAMES_TO_GROW = 30;
+
+	// Gaps between frames longer than this are pauses, not slow frames
+	static final long MAX_FRAME_GAP = 250;
+
+	// Weight of the latest frame in the running average
+	private static final float FRAME_TIME_SMOOTHING = 0.1f;
+
+	private long nextRegularSpawnTime = -1;
+	private int pendingBonusSpawns = 0;
+	private long nextBonusSpawnTime = 0;
+
+	private long lastFrameTime = -1;
+	private float averageFrameTime = 16f;
+	private int fastFrames = 0;
+
+	private int liveSpriteCap = MAX_LIVE_SPRITES;
+	private long bonusSpawnInterval = MIN_BONUS_SPAWN_INTERVAL;
+
+	void scheduleRegularSpawn(long time) {
+		nextRegularSpawnTime = time;
+	}
+
+	void addBonusSpawns(int count) {
+		pendingBonusSpawns += count;
+	}
+
+	/**
+	 *  Drops everything that's scheduled, and forgets the last frame so the time until the next
+	 *  one isn't taken for a slow frame
+	 */
+	void cancelAll() {
+		nextRegularSpawnTime = -1;
+		pendingBonusSpawns = 0;
+		lastFrameTime = -1;
+	}
+
+	/**
+	 *  Measures the time since the previous frame, and adapts the cap and the spacing of the extra
+	 *  images to it
+	 */
+	void onFrame(long now) {
+		long frameTime = lastFrameTime >= 0 ? now - lastFrameTime : -1;
+		lastFrameTime = now;
+		if (frameTime < 0 || frameTime > MAX_FRAME_GAP) {
+			return;
+		}
+
+		averageFrameTime += (frameTime - averageFrameTime) * FRAME_TIME_SMOOTHING;
+
+		if (averageFrameTime > SLOW_FRAME_TIME) {
+			fastFrames = 0;
+			if (liveSpriteCap > MIN_LIVE_SPRITES) {
+				liveSpriteCap--;
+			}
+			bonusSpawnInterval = Math.min(bonusSpawnInterval * 2, MAX_BONUS_SPAWN_INTERVAL);
+			// Let the average catch up before cutting back any further
+			averageFrameTime = (SLOW_FRAME_TIME + FAST_FRAME_TIME) / 2;
+		} else if (averageFrameTime < FAST_FRAME_TIME) {
+			if (++fastFrames >= FAST_FRAMES_TO_GROW) {
+				fastFrames = 0;
+				if (liveSpriteCap < MAX_LIVE_SPRITES) {
+					liveSpriteCap++;
+				}
+				bonusSpawnInterval = Math.max(bonusSpawnInterval / 2, MIN_BONUS_SPAWN_INTERVAL);
+			}
+		} else {
+			fastFrames = 0;
+		}
+	}
+
+	/**
+	 *  Whether a regular image should be fired now.  If so, it's up to the caller to schedule the
+	 *  next one
+	 */
+	boolean takeRegularSpawn(long now, int liveSprites) {
+		if (nextRegularSpawnTime < 0 || now < nextRegularSpawnTime || liveSprites >= liveSpriteCap) {
+			return false;
+		}
+		nextRegularSpawnTime = -1;
+		return true;
+	}
+
+	/**
+	 *  Whether one of the queued extra images should be fired now
+	 */
+	boolean takeBonusSpawn(long now, int liveSprites) {
+		if (pendingBonusSpawns <= 0 || now < nextBonusSpawnTime || liveSprites >= liveSpriteCap) {
+			return false;
+		}
+		pendingBonusSpawns--;
+		nextBonusSpawnTime = now + bonusSpawnInterval;
+		return true;
+	}
+
+	int getLiveSpriteCap() {
+		return liveSpriteCap;
+	}
+
+	int getPendingBonusSpawns() {
+		return pendingBonusSpawns;
+	}
+}
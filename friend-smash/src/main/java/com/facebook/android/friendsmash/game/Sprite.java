@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.game;
+
+/**
+ *  A single image flying across the game screen, as far as the game rules are concerned: what
+ *  it shows, whether smashing it scores or ends the game, and where it is on its SpriteMotion.
+ *  Sprites are owned and recycled by GameSimulation; whatever draws a sprite can keep a
+ *  reference to its drawing counterpart in the sprite's tag.  Whether a sprite is void or hidden
+ *  isn't stored in the sprite, but follows from the generation it was fired in, see GameSimulation
+ */
+public class Sprite {
+
+	private boolean shouldSmash;
+	private boolean isCoin;
+	private int celebIndex;
+	private int extraPoints;
+	private boolean wrongImageSmashed;
+	private boolean removed;
+	private int generation;
+	private long spawnTime;
+	private Object tag;
+
+	private final GameSimulation simulation;
+	private final SpriteMotion motion = new SpriteMotion();
+
+	Sprite(GameSimulation simulation) {
+		this.simulation = simulation;
+		reset(true, false, -1, 0);
+	}
+
+	void reset(boolean shouldSmash, boolean isCoin, int celebIndex, int generation) {
+		this.shouldSmash = shouldSmash;
+		this.isCoin = isCoin;
+		this.celebIndex = celebIndex;
+		this.generation = generation;
+		extraPoints = 0;
+		wrongImageSmashed = false;
+		removed = false;
+		spawnTime = -1;
+		tag = null;
+		motion.reset();
+	}
+
+	public boolean shouldSmash() {
+		return shouldSmash;
+	}
+
+	public boolean isCoin() {
+		return isCoin;
+	}
+
+	/**
+	 *  Index of the celebrity shown, or -1 if this is an image of the friend to smash (or a coin)
+	 */
+	public int getCelebIndex() {
+		return celebIndex;
+	}
+
+	public int getExtraPoints() {
+		return extraPoints;
+	}
+
+	void setExtraPoints(int extraPoints) {
+		this.extraPoints = extraPoints;
+	}
+
+	/**
+	 *  Whether the sprite no longer counts, as it was fired before the last bomb or pause
+	 */
+	public boolean isVoid() {
+		return generation < simulation.getVoidGeneration();
+	}
+
+	public boolean isWrongImageSmashed() {
+		return wrongImageSmashed;
+	}
+
+	void setWrongImageSmashed(boolean wrongImageSmashed) {
+		this.wrongImageSmashed = wrongImageSmashed;
+	}
+
+	/**
+	 *  Whether the sprite is still on the screen: it hasn't been removed, and it was fired after
+	 *  the last bomb or wrong smash (or is the image that was wrongly smashed)
+	 */
+	public boolean isVisible() {
+		return !removed && generation >= simulation.getHiddenGeneration();
+	}
+
+	void setRemoved() {
+		removed = true;
+	}
+
+	int getGeneration() {
+		return generation;
+	}
+
+	void setGeneration(int generation) {
+		this.generation = generation;
+	}
+
+	public long getSpawnTime() {
+		return spawnTime;
+	}
+
+	void setSpawnTime(long spawnTime) {
+		this.spawnTime = spawnTime;
+	}
+
+	public SpriteMotion getMotion() {
+		return motion;
+	}
+
+	public Object getTag() {
+		return tag;
+	}
+
+	public void setTag(Object tag) {
+		this.tag = tag;
+	}
+}
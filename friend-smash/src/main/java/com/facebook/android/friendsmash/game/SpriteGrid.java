@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.game;
+
+import java.util.ArrayList;
+
+/**
+ *  Uniform grid over the screen, with cells the size of an image, recording which sprites could
+ *  be under each cell.  Rebuilt once per frame after the sprites have moved, so a touch only has
+ *  to be tested against the handful of sprites in its own cell, however many are in flight.
+ *  The entries are kept in preallocated arrays, so rebuilding doesn't allocate either
+ */
+class SpriteGrid {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final int cellSize;
+	private final int columns;
+	private final int rows;
+
+	// Index of the first entry of every cell, or -1 if the cell is empty
+	private final int[] cellHeads;
+
+	// Entries chained into per-cell linked lists
+	private int[] entryNext = new int[INITIAL_CAPACITY];
+	private Sprite[] entrySprites = new Sprite[INITIAL_CAPACITY];
+	private int entryCount = 0;
+
+	SpriteGrid(int cellSize, int width, int height) {
+		this.cellSize = Math.max(1, cellSize);
+		this.columns = Math.max(1, (width + this.cellSize - 1) / this.cellSize);
+		this.rows = Math.max(1, (height + this.cellSize - 1) / this.cellSize);
+		this.cellHeads = new int[columns * rows];
+		clear();
+	}
+
+	void clear() {
+		for (int i = 0; i < cellHeads.length; i++) {
+			cellHeads[i] = -1;
+		}
+		for (int i = 0; i < entryCount; i++) {
+			entrySprites[i] = null;
+		}
+		entryCount = 0;
+	}
+
+	/**
+	 *  Indexes the visible sprites at their current positions.  Each sprite goes into every cell
+	 *  its bounding box overlaps, allowing for any rotation and its current scale
+	 */
+	void rebuild(ArrayList<Sprite> sprites, int spriteSize) {
+		clear();
+
+		for (int i = 0; i < sprites.size(); i++) {
+			Sprite sprite = sprites.get(i);
+			SpriteMotion motion = sprite.getMotion();
+			if (!sprite.isVisible() || !motion.isStarted()) {
+				continue;
+			}
+
+			// Half the diagonal of the (scaled) image, so it's covered however it's rotated
+			float radius = spriteSize * motion.getScale() * 0.7072f;
+			float centerX = motion.getX() + spriteSize/2f;
+			float centerY = motion.getY() + spriteSize/2f;
+
+			int left = Math.max(0, (int) Math.floor((centerX - radius) / cellSize));
+			int right = Math.min(columns - 1, (int) Math.floor((centerX + radius) / cellSize));
+			int top = Math.max(0, (int) Math.floor((centerY - radius) / cellSize));
+			int bottom = Math.min(rows - 1, (int) Math.floor((centerY + radius) / cellSize));
+
+			// Nothing is added for sprites entirely off the screen, as they can't be touched
+			for (int row = top; row <= bottom; row++) {
+				for (int column = left; column <= right; column++) {
+					add(row * columns + column, sprite);
+				}
+			}
+		}
+	}
+
+	private void add(int cell, Sprite sprite) {
+		if (entryCount == entrySprites.length) {
+			int[] newEntryNext = new int[entryCount * 2];
+			Sprite[] newEntrySprites = new Sprite[entryCount * 2];
+			System.arraycopy(entryNext, 0, newEntryNext, 0, entryCount);
+			System.arraycopy(entrySprites, 0, newEntrySprites, 0, entryCount);
+			entryNext = newEntryNext;
+			entrySprites = newEntrySprites;
+		}
+
+		entrySprites[entryCount] = sprite;
+		entryNext[entryCount] = cellHeads[cell];
+		cellHeads[cell] = entryCount;
+		entryCount++;
+	}
+
+	/**
+	 *  Returns the visible sprite whose image contains the given point, preferring the one whose
+	 *  centre is closest to it where images overlap, or null if there's none
+	 */
+	Sprite findSpriteAt(float x, float y, int spriteSize) {
+		if (x < 0 || y < 0) {
+			return null;
+		}
+		int column = (int) (x / cellSize);
+		int row = (int) (y / cellSize);
+		if (column >= columns || row >= rows) {
+			return null;
+		}
+
+		Sprite closestSprite = null;
+		float closestDistance = Float.MAX_VALUE;
+		for (int entry = cellHeads[row * columns + column]; entry >= 0; entry = entryNext[entry]) {
+			Sprite sprite = entrySprites[entry];
+			// Sprites smashed since the last rebuild are no longer visible
+			if (!sprite.isVisible()) {
+				continue;
+			}
+
+			SpriteMotion motion = sprite.getMotion();
+			if (motion.contains(x, y, spriteSize)) {
+				float dx = x - (motion.getX() + spriteSize/2f);
+				float dy = y - (motion.getY() + spriteSize/2f);
+				float distance = dx*dx + dy*dy;
+				if (distance < closestDistance) {
+					closestDistance = distance;
+					closestSprite = sprite;
+				}
+			}
+		}
+		return closestSprite;
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash.game;
+
+import java.util.Random;
+
+/**
+ *  Where a target is on its SpriteTrajectory, and whether it has been stopped or is scaling up
+ *  after a wrong smash.  Nothing is animated by itself: GameSimulation calls advance() once per
+ *  frame and whatever draws the Sprite then applies the resulting position, rotation and scale
+ */
+public class SpriteMotion {
+
+	private static final float SCALE_UP_FACTOR = 25f;
+	static final long SCALE_UP_DURATION = 1000;
+
+	private final SpriteTrajectory trajectory = new SpriteTrajectory();
+
+	private long startTime;
+	private long movementStoppedElapsed;
+	private long rotationStoppedElapsed;
+	private long scaleUpStartTime;
+	private boolean started;
+
+	// Values as of the last call to advance()
+	private float x;
+	private float y;
+	private float rotation;
+	private float scale;
+
+	public SpriteMotion() {
+		reset();
+	}
+
+	public void reset() {
+		started = false;
+		movementStoppedElapsed = -1;
+		rotationStoppedElapsed = -1;
+		scaleUpStartTime = -1;
+		rotation = 0f;
+		scale = 1f;
+	}
+
+	public void start(int iconWidth, int iconHeight, int screenWidth, int screenHeight, Random randomGenerator, long now) {
+		trajectory.reset(iconWidth, iconHeight, screenWidth, screenHeight, randomGenerator);
+		startTime = now;
+		started = true;
+		advance(now);
+	}
+
+	public boolean isStarted() {
+		return started;
+	}
+
+	public void stopMovement(long now) {
+		movementStoppedElapsed = now - startTime;
+	}
+
+	public void stopRotation(long now) {
+		rotationStoppedElapsed = now - startTime;
+	}
+
+	public void startScaleUp(long now) {
+		scaleUpStartTime = now;
+	}
+
+	public void advance(long now) {
+		if (!started) {
+			return;
+		}
+
+		long movementElapsed = movementStoppedElapsed >= 0 ? movementStoppedElapsed : now - startTime;
+		long rotationElapsed = rotationStoppedElapsed >= 0 ? rotationStoppedElapsed : now - startTime;
+		x = trajectory.getX(movementElapsed);
+		y = trajectory.getY(movementElapsed);
+		rotation = trajectory.getRotation(rotationElapsed);
+
+		if (scaleUpStartTime >= 0) {
+			float fraction = Math.min(1f, (float) (now - scaleUpStartTime) / SCALE_UP_DURATION);
+			scale = 1f + (SCALE_UP_FACTOR - 1f) * fraction;
+		}
+	}
+
+	public boolean isFlightOver(long now) {
+		return started && movementStoppedElapsed < 0 && trajectory.isFinished(now - startTime);
+	}
+
+	public boolean isScaleUpOver(long now) {
+		return scaleUpStartTime >= 0 && now - scaleUpStartTime >= SCALE_UP_DURATION;
+	}
+
+	/**
+	 *  Checks whether the given point falls within the (rotated and scaled) image of the given
+	 *  size, the same way a touch would be dispatched to a transformed View
+	 */
+	public boolean contains(float x, float y, int size) {
+		if (!started) {
+			return false;
+		}
+
+		float dx = x - (this.x + size/2f);
+		float dy = y - (this.y + size/2f);
+		double angle = Math.toRadians(-rotation);
+		double localX = dx * Math.cos(angle) - dy * Math.sin(angle);
+		double localY = dx * Math.sin(angle) + dy * Math.cos(angle);
+
+		return Math.abs(localX) <= size * scale / 2 && Math.abs(localY) <= size * scale / 2;
+	}
+
+	public float getX() {
+		return x;
+	}
+
+	public float getY() {
+		return y;
+	}
+
+	public float getRotation() {
+		return rotation;
+	}
+
+	public float getScale() {
+		return scale;
+	}
+}
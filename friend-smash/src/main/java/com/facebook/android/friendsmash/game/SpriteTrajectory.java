@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash.game;
+
+import java.util.Random;
+
+/**
+ *  Analytical flight path of a target: up from below the screen to a random peak, then back
+ *  down again, spinning all the way.  Horizontal movement is linear, while vertical movement
+ *  decelerates on the way up and accelerates on the way down.  Positions are computed for any
+ *  point in time, and a trajectory is reset for every flight so recycled targets can keep theirs
+ */
+class SpriteTrajectory {
+
+	static final long UP_DURATION = 1500;
+	static final long DOWN_DURATION = 1500;
+	static final long FLIGHT_DURATION = UP_DURATION + DOWN_DURATION;
+
+	private float startX;
+	private float centerX;
+	private float endX;
+	private float bottomY;
+	private float topY;
+	private float rotationDirection;
+	private long rotationTime;
+
+	void reset(int iconWidth, int iconHeight, int screenWidth, int screenHeight, Random randomGenerator) {
+		int leftXExtreme = -iconWidth*3;
+		int rightXExtreme = screenWidth+(iconWidth*2);
+
+		int bottom = screenHeight+iconHeight;
+		int topYLowerExtreme = (int) (screenHeight*0.3);
+		int topYUpperExtreme = 0;
+
+		int center = (screenWidth-iconWidth)/2 + iconWidth - randomGenerator.nextInt(iconWidth*2);
+
+		int leftX = randomGenerator.nextInt(center-leftXExtreme) + leftXExtreme;
+		int rightX = rightXExtreme - randomGenerator.nextInt(rightXExtreme-center);
+
+		int top = randomGenerator.nextInt(topYLowerExtreme-topYUpperExtreme) + topYUpperExtreme;
+
+		rotationTime = randomGenerator.nextInt(2500) + 500;
+
+		if (randomGenerator.nextInt(2) == 0) {
+			startX = leftX;
+			endX = center+(center-leftX);
+		} else {
+			startX = rightX;
+			endX = center-(rightX-center);
+		}
+		centerX = center;
+		bottomY = bottom;
+		topY = top;
+
+		rotationDirection = randomGenerator.nextInt(2) == 0 ? 1f : -1f;
+	}
+
+	float getX(long elapsed) {
+		if (elapsed < UP_DURATION) {
+			float fraction = Math.max(0f, (float) elapsed / UP_DURATION);
+			return startX + (centerX-startX)*fraction;
+		}
+		float fraction = Math.min(1f, (float) (elapsed-UP_DURATION) / DOWN_DURATION);
+		return centerX + (endX-centerX)*fraction;
+	}
+
+	float getY(long elapsed) {
+		if (elapsed < UP_DURATION) {
+			// DecelerateInterpolator
+			float fraction = 1f - Math.max(0f, (float) elapsed / UP_DURATION);
+			return bottomY + (topY-bottomY)*(1f - fraction*fraction);
+		}
+		// AccelerateInterpolator
+		float fraction = Math.min(1f, (float) (elapsed-UP_DURATION) / DOWN_DURATION);
+		return topY + (bottomY-topY)*fraction*fraction;
+	}
+
+	float getRotation(long elapsed) {
+		return rotationDirection * 360f * (elapsed % rotationTime) / rotationTime;
+	}
+
+	boolean isFinished(long elapsed) {
+		return elapsed >= FLIGHT_DURATION;
+	}
+}
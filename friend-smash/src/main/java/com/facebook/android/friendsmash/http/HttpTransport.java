@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+/**
+ *  How the app makes its own HTTP requests, outside of the Facebook SDK.  The app gets its
+ *  transport from FriendSmashApplication.getHttpTransport(), so another one, for instance one
+ *  talking to a local server, can be put in its place
+ */
+public interface HttpTransport {
+
+	/**
+	 *  The response to a request.  Its body is streamed, so it has to be closed, which lets the
+	 *  transport reuse the connection for the next request
+	 */
+	interface Response extends Closeable {
+		int getStatusCode();
+
+		/**
+		 *  Returns the URL the response came from, after following any redirects
+		 */
+		URL getUrl();
+
+		/**
+		 *  Returns the length of the body, or -1 if it isn't known
+		 */
+		int getContentLength();
+
+		/**
+		 *  Returns the body, already decompressed if it was sent compressed
+		 */
+		InputStream getBody() throws IOException;
+
+		void close();
+	}
+
+	/**
+	 *  Requests the given URL, following any redirects.  Not to be called on the UI thread
+	 */
+	Response get(URL url) throws IOException;
+}
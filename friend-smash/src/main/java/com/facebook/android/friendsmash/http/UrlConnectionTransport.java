@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.http;
+
+import android.content.Context;
+import android.net.SSLCertificateSocketFactory;
+import android.net.SSLSessionCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ *  The HttpTransport of the app, on HttpURLConnection.  Connections go back to HttpURLConnection's
+ *  pool once the body of their response has been read and closed, so they're never disconnected
+ *  here, which would close the socket instead.  Every HTTPS connection shares one socket factory
+ *  with an SSLSessionCache, so TLS sessions are resumed rather than negotiated again, even across
+ *  restarts of the app.  Responses are asked for gzipped and decompressed as they're read.
+ *
+ *  HttpURLConnection's pool is shared by the whole process, the Facebook SDK and Parse included,
+ *  so its size is left alone here: keep-alive is on by default, with up to 5 idle connections
+ *  kept per host, which is plenty for the few downloads the app runs at once
+ */
+public class UrlConnectionTransport implements HttpTransport {
+
+	private static final int CONNECT_TIMEOUT = 10000;
+	private static final int READ_TIMEOUT = 15000;
+
+	private final SSLSocketFactory sslSocketFactory;
+
+	public UrlConnectionTransport(Context context) {
+		this(SSLCertificateSocketFactory.getDefault(CONNECT_TIMEOUT, new SSLSessionCache(context)));
+	}
+
+	/**
+	 *  @param sslSocketFactory What every HTTPS connection is made with
+	 */
+	public UrlConnectionTransport(SSLSocketFactory sslSocketFactory) {
+		this.sslSocketFactory = sslSocketFactory;
+	}
+
+	@Override
+	public Response get(URL url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		if (connection instanceof HttpsURLConnection) {
+			((HttpsURLConnection) connection).setSSLSocketFactory(sslSocketFactory);
+		}
+		connection.setInstanceFollowRedirects(true);
+		connection.setConnectTimeout(CONNECT_TIMEOUT);
+		connection.setReadTimeout(READ_TIMEOUT);
+		// Asking for it explicitly means decompressing it here too, but it's then done the same on every version
+		connection.setRequestProperty("Accept-Encoding", "gzip");
+		return new UrlConnectionResponse(connection);
+	}
+
+	private static class UrlConnectionResponse implements Response {
+
+		private final HttpURLConnection connection;
+		private final int statusCode;
+		private InputStream body = null;
+
+		UrlConnectionResponse(HttpURLConnection connection) throws IOException {
+			this.connection = connection;
+			this.statusCode = connection.getResponseCode();
+		}
+
+		@Override
+		public int getStatusCode() {
+			return statusCode;
+		}
+
+		@Override
+		public URL getUrl() {
+			return connection.getURL();
+		}
+
+		@Override
+		public int getContentLength() {
+			// The length on the wire isn't the length of the body once it's decompressed
+			return isGzipped() ? -1 : connection.getContentLength();
+		}
+
+		private boolean isGzipped() {
+			return "gzip".equalsIgnoreCase(connection.getContentEncoding());
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			if (body == null) {
+				InputStream inputStream = statusCode < HttpURLConnection.HTTP_BAD_REQUEST ?
+						connection.getInputStream() : connection.getErrorStream();
+				if (inputStream != null && isGzipped()) {
+					inputStream = new GZIPInputStream(inputStream);
+				}
+				body = inputStream;
+			}
+			return body;
+		}
+
+		@Override
+		public void close() {
+			try {
+				// Whatever is left has to be read for the connection to be reused
+				InputStream inputStream = getBody();
+				if (inputStream != null) {
+					byte[] buffer = new byte[4096];
+					while (inputStream.read(buffer) != -1) {
+						// Discarded
+					}
+					inputStream.close();
+				}
+			} catch (IOException e) {
+				// The connection can't be reused then, so let it go
+				connection.disconnect();
+			}
+		}
+	}
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.image;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.facebook.android.friendsmash.FriendSmashApplication;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ *  Profile pictures of users, cached by user id and size in pixels: decoded in memory, in an LRU
+ *  sized by the bytes of the bitmaps, and as the downloaded image files on disk, in a directory of
+ *  bounded size whose entries expire after DISK_CACHE_TTL.  The AvatarSprites of the friends the
+ *  user plays against are kept in memory next to their pictures.  Pictures dropped from memory
+ *  aren't given to the BitmapPool, since views and games may still be drawing them; they're
+ *  decoded into pooled bitmaps, but not pooled themselves.  Memory lookups are cheap enough for
+ *  the UI thread; everything that touches the disk has to be done off it
+ */
+public class AvatarCache implements BitmapBudget.Owner {
+
+	// Profile pictures do change, but rarely enough that a day old one is fine
+	static final long DISK_CACHE_TTL = 24 * 60 * 60 * 1000;
+
+	static final long MAX_DISK_CACHE_SIZE = 4 * 1024 * 1024;
+
+	// Share of the heap the decoded pictures may use
+	private static final int MEMORY_CACHE_HEAP_FRACTION = 16;
+
+	// Share of the heap the sprites may use: only a game's target needs them, so this holds plenty
+	private static final int SPRITES_CACHE_HEAP_FRACTION = 64;
+
+	private static final String DISK_CACHE_DIRECTORY = "avatars";
+
+	private final LruCache<String, Bitmap> memoryCache;
+	private final LruCache<String, AvatarSprites> spritesCache;
+	private final File diskCacheDirectory;
+	private final BitmapDecoder bitmapDecoder;
+	private final ImageMetrics imageMetrics;
+	private final BitmapBudget bitmapBudget;
+
+	public AvatarCache(Context context, BitmapDecoder bitmapDecoder, ImageMetrics imageMetrics,
+			BitmapBudget bitmapBudget) {
+		int maxMemoryCacheSize = (int) (Runtime.getRuntime().maxMemory() / MEMORY_CACHE_HEAP_FRACTION);
+		memoryCache = new LruCache<String, Bitmap>(maxMemoryCacheSize) {
+			@Override
+			protected int sizeOf(String key, Bitmap bitmap) {
+				return BitmapPool.getSize(bitmap);
+			}
+		};
+		int maxSpritesCacheSize = (int) (Runtime.getRuntime().maxMemory() / SPRITES_CACHE_HEAP_FRACTION);
+		spritesCache = new LruCache<String, AvatarSprites>(maxSpritesCacheSize) {
+			@Override
+			protected int sizeOf(String key, AvatarSprites sprites) {
+				return sprites.getByteCount();
+			}
+		};
+		diskCacheDirectory = new File(context.getCacheDir(), DISK_CACHE_DIRECTORY);
+		this.bitmapDecoder = bitmapDecoder;
+		this.imageMetrics = imageMetrics;
+		this.bitmapBudget = bitmapBudget;
+	}
+
+	private static String getKey(String userId, int size) {
+		// User ids are numeric, but make sure nothing else ever ends up in a file name
+		return userId.replaceAll("[^A-Za-z0-9]", "_") + "_" + size;
+	}
+
+	/**
+	 *  Returns the decoded picture if it's in memory, or null
+	 */
+	public Bitmap getFromMemory(String userId, int size) {
+		Bitmap bitmap = memoryCache.get(getKey(userId, size));
+		imageMetrics.onMemoryLookup(bitmap != null);
+		return bitmap;
+	}
+
+	/**
+	 *  Returns the sprites made from the picture if they're in memory, or null
+	 */
+	public AvatarSprites getSpritesFromMemory(String userId, int size) {
+		return spritesCache.get(getKey(userId, size));
+	}
+
+	/**
+	 *  Adds the sprites made from a picture to memory
+	 */
+	public void putSprites(String userId, int size, AvatarSprites sprites) {
+		spritesCache.put(getKey(userId, size), sprites);
+		bitmapBudget.onBitmapsAdded();
+	}
+
+	@Override
+	public String getName() {
+		return "avatars";
+	}
+
+	/**
+	 *  Returns the bytes of the decoded pictures and the sprites in memory
+	 */
+	@Override
+	public int getBitmapBytes() {
+		return memoryCache.size() + spritesCache.size();
+	}
+
+	/**
+	 *  Drops the least recently used sprites, then decoded pictures, from memory.  Those on screen
+	 *  stay there until their views or game let them go
+	 */
+	@Override
+	public void trimToSize(int bytes) {
+		// LruCache.trimToSize() isn't public before Jelly Bean MR1, but its snapshot is in LRU order
+		for (String key : spritesCache.snapshot().keySet()) {
+			if (getBitmapBytes() <= bytes) {
+				break;
+			}
+			spritesCache.remove(key);
+		}
+		for (String key : memoryCache.snapshot().keySet()) {
+			if (getBitmapBytes() <= bytes) {
+				break;
+			}
+			memoryCache.remove(key);
+		}
+	}
+
+	/**
+	 *  Returns the picture from memory or, failing that, decodes it from disk if it's there and
+	 *  hasn't expired.  Not to be called on the UI thread
+	 */
+	public Bitmap get(String userId, int size) {
+		String key = getKey(userId, size);
+		Bitmap bitmap = memoryCache.get(key);
+		if (bitmap != null) {
+			return bitmap;
+		}
+
+		synchronized (this) {
+			File file = new File(diskCacheDirectory, key);
+			if (!file.exists()) {
+				imageMetrics.onDiskLookup(false);
+				return null;
+			}
+			if (System.currentTimeMillis() - file.lastModified() > DISK_CACHE_TTL) {
+				file.delete();
+				imageMetrics.onDiskLookup(false);
+				return null;
+			}
+			bitmap = bitmapDecoder.decodeFile(file.getPath(), size, size);
+			if (bitmap == null) {
+				// Not a picture we can decode, so don't try it again
+				file.delete();
+				imageMetrics.onDiskLookup(false);
+				return null;
+			}
+		}
+		imageMetrics.onDiskLookup(true);
+
+		memoryCache.put(key, bitmap);
+		bitmapBudget.onBitmapsAdded();
+		return bitmap;
+	}
+
+	/**
+	 *  Adds a picture to both caches: the decoded bitmap to memory, and the downloaded image it
+	 *  was decoded from to disk.  Not to be called on the UI thread
+	 */
+	public void put(String userId, int size, Bitmap bitmap, byte[] encodedImage) {
+		String key = getKey(userId, size);
+		memoryCache.put(key, bitmap);
+		bitmapBudget.onBitmapsAdded();
+
+		synchronized (this) {
+			if (!diskCacheDirectory.exists() && !diskCacheDirectory.mkdirs()) {
+				return;
+			}
+
+			// Written to a temporary file first, so a half written picture is never read back
+			File file = new File(diskCacheDirectory, key);
+			File temporaryFile = new File(diskCacheDirectory, key + ".tmp");
+			OutputStream outputStream = null;
+			try {
+				outputStream = new FileOutputStream(temporaryFile);
+				outputStream.write(encodedImage);
+				outputStream.close();
+				outputStream = null;
+				if (!temporaryFile.renameTo(file)) {
+					temporaryFile.delete();
+				}
+			} catch (IOException e) {
+				Log.e(FriendSmashApplication.TAG, e.toString());
+				temporaryFile.delete();
+			} finally {
+				closeQuietly(outputStream);
+			}
+
+			trimDiskCache();
+		}
+	}
+
+	/**
+	 *  Deletes expired pictures, then the least recently written ones until the directory is
+	 *  within MAX_DISK_CACHE_SIZE
+	 */
+	private void trimDiskCache() {
+		File[] files = diskCacheDirectory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		long totalSize = 0;
+		for (int i = 0; i < files.length; i++) {
+			if (now - files[i].lastModified() > DISK_CACHE_TTL && files[i].delete()) {
+				files[i] = null;
+			} else {
+				totalSize += files[i].length();
+			}
+		}
+
+		while (totalSize > MAX_DISK_CACHE_SIZE) {
+			int oldest = -1;
+			for (int i = 0; i < files.length; i++) {
+				if (files[i] != null && (oldest < 0 || files[i].lastModified() < files[oldest].lastModified())) {
+					oldest = i;
+				}
+			}
+			if (oldest < 0) {
+				break;
+			}
+			long length = files[oldest].length();
+			if (files[oldest].delete()) {
+				totalSize -= length;
+			}
+			files[oldest] = null;
+		}
+	}
+
+	private static void closeQuietly(OutputStream outputStream) {
+		if (outputStream != null) {
+			try {
+				outputStream.close();
+			} catch (IOException e) {
+				// Nothing more to do
+			}
+		}
+	}
+}
@@ -0,0 +1,305 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.image;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ *  Loads the profile pictures of users for every screen of the app, all at the one size, so that
+ *  a picture loaded for one screen is already there for the next.  Pictures come from the
+ *  AvatarCache, or are downloaded by the PictureUrlResolver and added to it, on the IoScheduler.
+ *  Requests for a user whose picture is already being loaded wait for that load rather than
+ *  starting another, moving it up to their priority, and a load nobody waits for anymore is
+ *  dropped if it hasn't started.  The AvatarSprites a friend is drawn with in the game are made
+ *  from their picture on the IoScheduler too, as soon as it's loaded.  UI thread only
+ */
+public class AvatarLoader {
+
+	/**
+	 *  Told on the UI thread when a picture has been loaded
+	 */
+	public interface Callback {
+		/**
+		 *  @param bitmap The picture, or null if it couldn't be loaded
+		 */
+		void onAvatarLoaded(String userId, Bitmap bitmap);
+	}
+
+	/**
+	 *  Told on the UI thread when the sprites of a picture have been made
+	 */
+	public interface SpritesCallback {
+		/**
+		 *  @param sprites The sprites, or null if the picture couldn't be loaded
+		 */
+		void onSpritesLoaded(String userId, AvatarSprites sprites);
+	}
+
+	private static final Callback PREFETCH_CALLBACK = new Callback() {
+		@Override
+		public void onAvatarLoaded(String userId, Bitmap bitmap) {
+		}
+	};
+
+	private static final SpritesCallback PREFETCH_SPRITES_CALLBACK = new SpritesCallback() {
+		@Override
+		public void onSpritesLoaded(String userId, AvatarSprites sprites) {
+		}
+	};
+
+	private final AvatarCache avatarCache;
+	private final PictureUrlResolver pictureUrlResolver;
+	private final int size;
+
+	private final Handler uiHandler = new Handler(Looper.getMainLooper());
+
+	private final IoScheduler ioScheduler;
+
+	private static class Load {
+		IoScheduler.Task task;
+		final ArrayList<Callback> callbacks = new ArrayList<Callback>();
+	}
+
+	// The pictures being loaded and whoever is waiting for them, by user id
+	private final HashMap<String, Load> pendingLoads = new HashMap<String, Load>();
+
+	private static class SpritesLoad {
+		IoScheduler.Priority priority;
+		// Only once the picture is loaded
+		IoScheduler.Task task;
+		final ArrayList<SpritesCallback> callbacks = new ArrayList<SpritesCallback>();
+	}
+
+	// The sprites being made and whoever is waiting for them, by user id
+	private final HashMap<String, SpritesLoad> pendingSpritesLoads = new HashMap<String, SpritesLoad>();
+
+	/**
+	 *  @param size Size in pixels the pictures are loaded at
+	 */
+	public AvatarLoader(AvatarCache avatarCache, PictureUrlResolver pictureUrlResolver,
+			IoScheduler ioScheduler, int size) {
+		this.avatarCache = avatarCache;
+		this.pictureUrlResolver = pictureUrlResolver;
+		this.ioScheduler = ioScheduler;
+		this.size = size;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 *  Returns the picture of the given user if it's in memory, or null
+	 */
+	public Bitmap getFromMemory(String userId) {
+		return avatarCache.getFromMemory(userId, size);
+	}
+
+	/**
+	 *  Returns the picture of the given user if it's in memory.  Otherwise returns null and loads
+	 *  it with the given priority, telling the callback once it's loaded
+	 */
+	public Bitmap load(final String userId, IoScheduler.Priority priority, Callback callback) {
+		Bitmap bitmap = getFromMemory(userId);
+		if (bitmap != null) {
+			return bitmap;
+		}
+
+		Load load = pendingLoads.get(userId);
+		if (load != null) {
+			load.callbacks.add(callback);
+			load.task.raisePriority(priority);
+			return null;
+		}
+		load = new Load();
+		load.callbacks.add(callback);
+		pendingLoads.put(userId, load);
+
+		load.task = ioScheduler.submit(new Runnable() {
+			@Override
+			public void run() {
+				final Bitmap loadedBitmap = fetch(userId);
+				uiHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						onLoaded(userId, loadedBitmap);
+					}
+				});
+			}
+		}, priority);
+		return null;
+	}
+
+	/**
+	 *  Starts loading the picture of the given user, if it isn't in memory already, so that it is
+	 *  by the time it's shown
+	 */
+	public void prefetch(String userId) {
+		load(userId, IoScheduler.Priority.PREFETCH, PREFETCH_CALLBACK);
+	}
+
+	/**
+	 *  Stops telling the callback about the picture of the given user.  If nothing else is waiting
+	 *  for it and it hasn't started loading, it isn't loaded at all
+	 */
+	public void cancel(String userId, Callback callback) {
+		Load load = pendingLoads.get(userId);
+		if (load == null) {
+			return;
+		}
+		load.callbacks.remove(callback);
+		if (load.callbacks.isEmpty() && load.task.cancel()) {
+			pendingLoads.remove(userId);
+		}
+	}
+
+	/**
+	 *  Returns the sprites of the given user if they're in memory.  Otherwise returns null, loads
+	 *  the picture with the given priority if it isn't in memory, and makes the sprites from it,
+	 *  telling the callback once they're made
+	 */
+	public AvatarSprites loadSprites(String userId, IoScheduler.Priority priority,
+			SpritesCallback callback) {
+		AvatarSprites sprites = avatarCache.getSpritesFromMemory(userId, size);
+		if (sprites != null) {
+			return sprites;
+		}
+
+		SpritesLoad spritesLoad = pendingSpritesLoads.get(userId);
+		if (spritesLoad != null) {
+			spritesLoad.callbacks.add(callback);
+			if (priority.ordinal() < spritesLoad.priority.ordinal()) {
+				spritesLoad.priority = priority;
+				// Moves up whichever of the picture or the sprites is being worked on
+				Load load = pendingLoads.get(userId);
+				if (load != null) {
+					load.task.raisePriority(priority);
+				}
+				if (spritesLoad.task != null) {
+					spritesLoad.task.raisePriority(priority);
+				}
+			}
+			return null;
+		}
+		spritesLoad = new SpritesLoad();
+		spritesLoad.priority = priority;
+		spritesLoad.callbacks.add(callback);
+		pendingSpritesLoads.put(userId, spritesLoad);
+
+		Bitmap bitmap = load(userId, priority, spritesPictureCallback);
+		if (bitmap != null) {
+			makeSprites(userId, bitmap, spritesLoad);
+		}
+		return null;
+	}
+
+	/**
+	 *  Starts making the sprites of the given user, if they aren't in memory already, so that
+	 *  they are by the time the game starts
+	 */
+	public void prefetchSprites(String userId) {
+		loadSprites(userId, IoScheduler.Priority.PREFETCH, PREFETCH_SPRITES_CALLBACK);
+	}
+
+	/**
+	 *  Stops telling the callback about the sprites of the given user.  If nothing else is waiting
+	 *  for them and they haven't started being made, they aren't made at all, and their picture
+	 *  isn't loaded unless something else is waiting for it too
+	 */
+	public void cancelSprites(String userId, SpritesCallback callback) {
+		SpritesLoad spritesLoad = pendingSpritesLoads.get(userId);
+		if (spritesLoad == null) {
+			return;
+		}
+		spritesLoad.callbacks.remove(callback);
+		if (!spritesLoad.callbacks.isEmpty()) {
+			return;
+		}
+		if (spritesLoad.task == null) {
+			// Still waiting for the picture
+			pendingSpritesLoads.remove(userId);
+			cancel(userId, spritesPictureCallback);
+		} else if (spritesLoad.task.cancel()) {
+			pendingSpritesLoads.remove(userId);
+		}
+	}
+
+	private final Callback spritesPictureCallback = new Callback() {
+		@Override
+		public void onAvatarLoaded(String userId, Bitmap bitmap) {
+			SpritesLoad spritesLoad = pendingSpritesLoads.get(userId);
+			if (spritesLoad == null) {
+				return;
+			}
+			if (bitmap != null) {
+				makeSprites(userId, bitmap, spritesLoad);
+			} else {
+				onSpritesLoaded(userId, null);
+			}
+		}
+	};
+
+	private void makeSprites(final String userId, final Bitmap bitmap, SpritesLoad spritesLoad) {
+		spritesLoad.task = ioScheduler.submit(new Runnable() {
+			@Override
+			public void run() {
+				final AvatarSprites sprites = AvatarSprites.create(bitmap, size);
+				avatarCache.putSprites(userId, size, sprites);
+				uiHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						onSpritesLoaded(userId, sprites);
+					}
+				});
+			}
+		}, spritesLoad.priority);
+	}
+
+	private void onSpritesLoaded(String userId, AvatarSprites sprites) {
+		SpritesLoad spritesLoad = pendingSpritesLoads.remove(userId);
+		for (SpritesCallback callback : spritesLoad.callbacks) {
+			callback.onSpritesLoaded(userId, sprites);
+		}
+	}
+
+	private Bitmap fetch(String userId) {
+		Bitmap bitmap = avatarCache.get(userId, size);
+		if (bitmap == null) {
+			PictureUrlResolver.Picture picture = pictureUrlResolver.download(userId, size);
+			if (picture != null) {
+				bitmap = picture.bitmap;
+				avatarCache.put(userId, size, picture.bitmap, picture.encodedImage);
+			}
+		}
+		return bitmap;
+	}
+
+	private void onLoaded(String userId, Bitmap bitmap) {
+		Load load = pendingLoads.remove(userId);
+		for (Callback callback : load.callbacks) {
+			callback.onAvatarLoaded(userId, bitmap);
+		}
+	}
+}
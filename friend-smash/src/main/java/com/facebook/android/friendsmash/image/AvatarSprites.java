@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.image;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ *  The images a friend is drawn with in the game, made from their profile picture ahead of the
+ *  game: the picture cropped square and scaled to the exact size of a sprite, so drawing it in a
+ *  frame is a plain copy, and the same with a coin-coloured border for the bonus sprites that are
+ *  worth an extra point.  Made off the UI thread by create(), and cached by the AvatarCache with
+ *  the picture they were made from
+ */
+public class AvatarSprites {
+
+	// The colours of the coin in the sprite atlas
+	private static final int BORDER_COLOR = 0xFFF5C000;
+	private static final int BORDER_EDGE_COLOR = 0xFFA66F00;
+
+	// Width of the border, as a fraction of the size of the sprite
+	private static final int BORDER_FRACTION = 12;
+
+	private final Bitmap sprite;
+	private final Bitmap bonusSprite;
+
+	private AvatarSprites(Bitmap sprite, Bitmap bonusSprite) {
+		this.sprite = sprite;
+		this.bonusSprite = bonusSprite;
+	}
+
+	/**
+	 *  The picture, exactly size by size pixels
+	 */
+	public Bitmap getSprite() {
+		return sprite;
+	}
+
+	/**
+	 *  The picture with a coin-coloured border, exactly size by size pixels
+	 */
+	public Bitmap getBonusSprite() {
+		return bonusSprite;
+	}
+
+	public int getByteCount() {
+		return sprite.getRowBytes() * sprite.getHeight() + bonusSprite.getRowBytes() * bonusSprite.getHeight();
+	}
+
+	/**
+	 *  Makes the sprites of the given picture, size pixels square.  Not to be called on the UI
+	 *  thread
+	 */
+	public static AvatarSprites create(Bitmap picture, int size) {
+		// Crop the middle of the picture, like an ImageView with CENTER_CROP
+		int side = Math.min(picture.getWidth(), picture.getHeight());
+		int left = (picture.getWidth() - side) / 2;
+		int top = (picture.getHeight() - side) / 2;
+		Rect source = new Rect(left, top, left + side, top + side);
+
+		Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+		// Profile pictures are opaque, so neither needs an alpha channel
+		Bitmap sprite = Bitmap.createBitmap(size, size, Bitmap.Config.RGB_565);
+		Canvas canvas = new Canvas(sprite);
+		canvas.drawBitmap(picture, source, new Rect(0, 0, size, size), paint);
+
+		Bitmap bonusSprite = Bitmap.createBitmap(size, size, Bitmap.Config.RGB_565);
+		canvas.setBitmap(bonusSprite);
+		int border = Math.max(size / BORDER_FRACTION, 2);
+		canvas.drawColor(BORDER_EDGE_COLOR);
+		paint.setColor(BORDER_COLOR);
+		canvas.drawRect(1, 1, size - 1, size - 1, paint);
+		canvas.drawBitmap(picture, source, new Rect(border, border, size - border, size - border), paint);
+
+		return new AvatarSprites(sprite, bonusSprite);
+	}
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.image;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+
+/**
+ *  Keeps the bitmaps held across the app within one budget, sized by the memory class of the
+ *  device.  Everything that holds on to bitmaps is an Owner, registered in the order they should
+ *  give them up in, cheapest to get back first.  Whenever an owner takes on more bitmaps it tells
+ *  the budget, which trims the owners back under it, and when the system asks the app to trim its
+ *  memory the budget shrinks for a while, more so the further into the background the app is, so
+ *  it's less likely to be killed there.  UI thread only, apart from onBitmapsAdded(), which may be
+ *  called from any thread: owners are only ever trimmed on the UI thread
+ */
+public class BitmapBudget {
+
+	/**
+	 *  Something that holds on to bitmaps
+	 */
+	public interface Owner {
+		String getName();
+
+		/**
+		 *  Returns the bytes of the bitmaps held
+		 */
+		int getBitmapBytes();
+
+		/**
+		 *  Lets go of bitmaps until no more than the given bytes are held, or as close to that as
+		 *  it can get without taking any from view
+		 */
+		void trimToSize(int bytes);
+	}
+
+	// Share of the heap bitmaps may take up, and on devices with little memory
+	private static final int HEAP_FRACTION = 4;
+	private static final int LOW_MEMORY_HEAP_FRACTION = 8;
+	private static final int LOW_MEMORY_CLASS = 32;
+
+	private final ArrayList<Owner> owners = new ArrayList<Owner>();
+	private final int budget;
+
+	// The budget while trimmed, until the app is next in the foreground
+	private int trimmedBudget;
+
+	private final Handler uiHandler = new Handler(Looper.getMainLooper());
+
+	// Whether bitmaps were added off the UI thread, and the owners are yet to be trimmed for it
+	private boolean trimPosted = false;
+
+	private final Runnable trimToBudget = new Runnable() {
+		@Override
+		public void run() {
+			synchronized (BitmapBudget.this) {
+				trimPosted = false;
+				trimToSize(trimmedBudget);
+			}
+		}
+	};
+
+	public BitmapBudget(Context context) {
+		int memoryClass = ((ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE)).getMemoryClass();
+		int heapFraction = memoryClass <= LOW_MEMORY_CLASS ? LOW_MEMORY_HEAP_FRACTION : HEAP_FRACTION;
+		budget = memoryClass * 1024 * 1024 / heapFraction;
+		trimmedBudget = budget;
+	}
+
+	/**
+	 *  Adds an owner, which gives up its bitmaps after all owners added before it
+	 */
+	public synchronized void addOwner(Owner owner) {
+		owners.add(owner);
+	}
+
+	public int getBudget() {
+		return budget;
+	}
+
+	public synchronized int getBitmapBytes() {
+		int bytes = 0;
+		for (Owner owner : owners) {
+			bytes += owner.getBitmapBytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 *  Called by an owner that has taken on more bitmaps, on any thread.  Off the UI thread the
+	 *  owners are trimmed once the UI thread gets to it, as some of them can only be trimmed there
+	 */
+	public synchronized void onBitmapsAdded() {
+		if (Looper.myLooper() == Looper.getMainLooper()) {
+			trimToSize(trimmedBudget);
+		} else if (!trimPosted) {
+			trimPosted = true;
+			uiHandler.post(trimToBudget);
+		}
+	}
+
+	/**
+	 *  Called from ComponentCallbacks2.onTrimMemory(), with its level
+	 */
+	public synchronized void onTrimMemory(int level) {
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+			// Next in line to be killed, so hold on to nothing
+			trimmedBudget = 0;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+			trimmedBudget = budget / 4;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+			trimmedBudget = budget / 2;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+			trimmedBudget = budget / 4;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			trimmedBudget = budget / 2;
+		} else {
+			trimmedBudget = budget * 3 / 4;
+		}
+		trimToSize(trimmedBudget);
+	}
+
+	/**
+	 *  Called when the app is in the foreground again, so it may use its whole budget
+	 */
+	public synchronized void restore() {
+		trimmedBudget = budget;
+	}
+
+	private void trimToSize(int size) {
+		int excess = getBitmapBytes() - size;
+		for (int i = 0; i < owners.size() && excess > 0; i++) {
+			Owner owner = owners.get(i);
+			int ownerBytes = owner.getBitmapBytes();
+			owner.trimToSize(Math.max(ownerBytes - excess, 0));
+			excess -= ownerBytes - owner.getBitmapBytes();
+		}
+	}
+
+	public synchronized void dump(PrintWriter writer, String prefix) {
+		writer.print(prefix + "Bitmaps held: " + getBitmapBytes() / 1024 + "KB of " + trimmedBudget / 1024 + "KB (");
+		for (int i = 0; i < owners.size(); i++) {
+			writer.print((i > 0 ? ", " : "") + owners.get(i).getName() + " " + owners.get(i).getBitmapBytes() / 1024 + "KB");
+		}
+		writer.println(")");
+	}
+}
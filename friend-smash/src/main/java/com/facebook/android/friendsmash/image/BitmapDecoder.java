@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.image;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.SystemClock;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ *  Decodes images at no more than the size they'll be shown at.  The bounds of the image are read
+ *  first, so it can be sampled down while it's decoded instead of decoded in full and scaled, it's
+ *  decoded without an alpha channel where it doesn't have one, and it's decoded into a bitmap from
+ *  the BitmapPool where there's one that fits.  Safe to use from any thread
+ */
+public class BitmapDecoder {
+
+	// How much of a stream the bounds of the image may take to read, so it can be read again
+	private static final int STREAM_BOUNDS_LIMIT = 64 * 1024;
+
+	private final BitmapPool bitmapPool;
+	private final ImageMetrics imageMetrics;
+
+	public BitmapDecoder(BitmapPool bitmapPool, ImageMetrics imageMetrics) {
+		this.bitmapPool = bitmapPool;
+		this.imageMetrics = imageMetrics;
+	}
+
+	public BitmapPool getBitmapPool() {
+		return bitmapPool;
+	}
+
+	private interface Source {
+		Bitmap decode(BitmapFactory.Options options);
+	}
+
+	/**
+	 *  Decodes an image as it's read from the stream, sampled down to no less than the given size,
+	 *  or returns null if it isn't one that can be decoded.  The stream is read up to where the
+	 *  image ends, which needn't be the end of the stream
+	 */
+	public Bitmap decodeStream(InputStream inputStream, int requiredWidth, int requiredHeight) {
+		final InputStream markedStream = new BufferedInputStream(inputStream);
+		markedStream.mark(STREAM_BOUNDS_LIMIT);
+		// So BitmapFactory doesn't put its own mark, with a smaller limit, in place of this one
+		final InputStream decodedStream = new UnmarkableInputStream(markedStream);
+		return decode(new Source() {
+			private boolean started = false;
+
+			@Override
+			public Bitmap decode(BitmapFactory.Options options) {
+				if (started) {
+					try {
+						markedStream.reset();
+					} catch (IOException e) {
+						// Read too far to go back to the start
+						return null;
+					}
+				}
+				started = true;
+				return BitmapFactory.decodeStream(decodedStream, null, options);
+			}
+		}, requiredWidth, requiredHeight, false);
+	}
+
+	/**
+	 *  Decodes an image file, sampled down to no less than the given size, or returns null if it
+	 *  doesn't exist or isn't one that can be decoded
+	 */
+	public Bitmap decodeFile(final String path, int requiredWidth, int requiredHeight) {
+		return decode(new Source() {
+			@Override
+			public Bitmap decode(BitmapFactory.Options options) {
+				return BitmapFactory.decodeFile(path, options);
+			}
+		}, requiredWidth, requiredHeight, false);
+	}
+
+	/**
+	 *  Decodes an image resource, sampled down to no less than the given size.  The image isn't
+	 *  scaled to the density of the screen, but its bitmap has the density it would be drawn at
+	 *
+	 *  @param opaque Whether every pixel of the image is opaque, which a PNG doesn't say
+	 */
+	public Bitmap decodeResource(final Resources resources, final int id, int requiredWidth,
+			int requiredHeight, boolean opaque) {
+		final BitmapFactory.Options scaleOptions = new BitmapFactory.Options();
+		Bitmap bitmap = decode(new Source() {
+			@Override
+			public Bitmap decode(BitmapFactory.Options options) {
+				options.inScaled = false;
+				scaleOptions.inSampleSize = options.inSampleSize;
+				return BitmapFactory.decodeResource(resources, id, options);
+			}
+		}, requiredWidth, requiredHeight, opaque);
+		if (bitmap != null && scaleOptions.inSampleSize > 1) {
+			bitmap.setDensity(bitmap.getDensity() / scaleOptions.inSampleSize);
+		}
+		return bitmap;
+	}
+
+	private Bitmap decode(Source source, int requiredWidth, int requiredHeight, boolean opaque) {
+		long startTime = SystemClock.uptimeMillis();
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		source.decode(options);
+		if (options.outWidth <= 0 || options.outHeight <= 0) {
+			return null;
+		}
+
+		options.inJustDecodeBounds = false;
+		options.inSampleSize = getSampleSize(options.outWidth, options.outHeight, requiredWidth, requiredHeight);
+		// JPEGs never have an alpha channel
+		if (opaque || "image/jpeg".equals(options.outMimeType)) {
+			options.inPreferredConfig = Bitmap.Config.RGB_565;
+		} else {
+			options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+		}
+		options.inMutable = true;
+
+		// Before KitKat a bitmap can only be decoded into if the image isn't sampled
+		if (BitmapPool.canReuseAnySize() || options.inSampleSize == 1) {
+			int width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+			int height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+			options.inBitmap = bitmapPool.get(width, height, options.inPreferredConfig);
+		}
+
+		Bitmap bitmap = null;
+		try {
+			bitmap = source.decode(options);
+		} catch (IllegalArgumentException e) {
+			// The image couldn't be decoded into the pooled bitmap after all
+		}
+		if (bitmap == null && options.inBitmap != null) {
+			bitmapPool.put(options.inBitmap);
+			options.inBitmap = null;
+			bitmap = source.decode(options);
+		}
+		imageMetrics.onDecode(SystemClock.uptimeMillis() - startTime);
+		return bitmap;
+	}
+
+	/**
+	 *  Returns the biggest power of two the image can be sampled down by and still be at least the
+	 *  required size.  A required size of 0 means any
+	 */
+	static int getSampleSize(int width, int height, int requiredWidth, int requiredHeight) {
+		int sampleSize = 1;
+		if (requiredWidth <= 0 && requiredHeight <= 0) {
+			return sampleSize;
+		}
+		while (width / (sampleSize * 2) >= requiredWidth && height / (sampleSize * 2) >= requiredHeight) {
+			sampleSize *= 2;
+		}
+		return sampleSize;
+	}
+
+	private static class UnmarkableInputStream extends FilterInputStream {
+
+		UnmarkableInputStream(InputStream inputStream) {
+			super(inputStream);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
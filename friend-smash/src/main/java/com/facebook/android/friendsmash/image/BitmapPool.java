@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.image;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ *  Bitmaps that are no longer shown, kept so that decoding another image can draw into one of
+ *  them (BitmapFactory.Options.inBitmap) rather than allocating.  Before KitKat a bitmap can only
+ *  be reused for an image of exactly its size and config, so that's what they're bucketed by;
+ *  from KitKat on any bitmap with enough bytes will do, so they're bucketed by byte count, in
+ *  powers of two.  The least recently added bitmaps are dropped when the pool is over its size
+ */
+public class BitmapPool implements BitmapBudget.Owner {
+
+	private final int maxSize;
+	private int size = 0;
+
+	private final HashMap<String, ArrayList<Bitmap>> buckets = new HashMap<String, ArrayList<Bitmap>>();
+
+	// Every pooled bitmap, least recently added first
+	private final LinkedList<Bitmap> bitmaps = new LinkedList<Bitmap>();
+
+	/**
+	 *  @param maxSize Bytes of bitmaps the pool may hold
+	 */
+	public BitmapPool(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	static boolean canReuseAnySize() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
+	}
+
+	static int getBytesPerPixel(Bitmap.Config config) {
+		if (config == Bitmap.Config.ARGB_8888) {
+			return 4;
+		} else if (config == Bitmap.Config.ALPHA_8) {
+			return 1;
+		} else {
+			return 2;
+		}
+	}
+
+	/**
+	 *  Returns the bytes the bitmap holds on to.  From KitKat that's what it was allocated with,
+	 *  which is more than its pixels need if it was decoded into a bigger pooled bitmap
+	 */
+	@TargetApi(Build.VERSION_CODES.KITKAT)
+	public static int getSize(Bitmap bitmap) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			return bitmap.getAllocationByteCount();
+		}
+		return bitmap.getByteCount();
+	}
+
+	private static String getKey(int size) {
+		return String.valueOf(Integer.highestOneBit(size));
+	}
+
+	private static String getKey(int width, int height, Bitmap.Config config) {
+		return width + "x" + height + "_" + config;
+	}
+
+	private static String getKey(Bitmap bitmap) {
+		if (canReuseAnySize()) {
+			return getKey(getSize(bitmap));
+		}
+		return getKey(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+	}
+
+	/**
+	 *  Takes a bitmap out of the pool that an image of the given size and config can be decoded
+	 *  into, or returns null if there isn't one
+	 */
+	public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+		if (!canReuseAnySize()) {
+			return take(getKey(width, height, config), 0);
+		}
+
+		// Bitmaps in the bucket of the size needed may be too small, but all in the next one are
+		// big enough.  Any bigger than that would waste more than they save
+		int neededSize = width * height * getBytesPerPixel(config);
+		Bitmap bitmap = take(getKey(neededSize), neededSize);
+		if (bitmap == null) {
+			bitmap = take(getKey(Integer.highestOneBit(neededSize) << 1), neededSize);
+		}
+		return bitmap;
+	}
+
+	private Bitmap take(String key, int neededSize) {
+		ArrayList<Bitmap> bucket = buckets.get(key);
+		if (bucket == null) {
+			return null;
+		}
+		for (int i = bucket.size() - 1; i >= 0; i--) {
+			Bitmap bitmap = bucket.get(i);
+			if (getSize(bitmap) >= neededSize) {
+				bucket.remove(i);
+				bitmaps.remove(bitmap);
+				size -= getSize(bitmap);
+				return bitmap;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 *  Gives the pool a bitmap that nothing draws anymore.  Bitmaps that can't be decoded into,
+	 *  or are bigger than the whole pool, are recycled instead
+	 */
+	public synchronized void put(Bitmap bitmap) {
+		if (bitmap == null || bitmap.isRecycled() || bitmaps.contains(bitmap)) {
+			return;
+		}
+		int bitmapSize = getSize(bitmap);
+		if (!bitmap.isMutable() || bitmapSize > maxSize) {
+			bitmap.recycle();
+			return;
+		}
+
+		String key = getKey(bitmap);
+		ArrayList<Bitmap> bucket = buckets.get(key);
+		if (bucket == null) {
+			bucket = new ArrayList<Bitmap>();
+			buckets.put(key, bucket);
+		}
+		bucket.add(bitmap);
+		bitmaps.addLast(bitmap);
+		size += bitmapSize;
+
+		trimToSize(maxSize);
+	}
+
+	/**
+	 *  Drops bitmaps, least recently added first, until the pool holds at most the given bytes
+	 */
+	@Override
+	public synchronized void trimToSize(int trimmedSize) {
+		while (size > trimmedSize && !bitmaps.isEmpty()) {
+			Bitmap bitmap = bitmaps.removeFirst();
+			buckets.get(getKey(bitmap)).remove(bitmap);
+			size -= getSize(bitmap);
+			bitmap.recycle();
+		}
+	}
+
+	public synchronized void clear() {
+		trimToSize(0);
+	}
+
+	@Override
+	public String getName() {
+		return "pool";
+	}
+
+	@Override
+	public synchronized int getBitmapBytes() {
+		return size;
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.image;
+
+import java.io.PrintWriter;
+
+/**
+ *  What loading images costs: how often the memory and disk caches of the AvatarCache have the
+ *  picture asked for, how many downloads there were, how many bytes they took and how long they
+ *  took to start and to finish, and how long decoding took.  Kept for the life of the app and
+ *  dumped, along with the bytes of bitmaps held, by FriendSmashApplication.dumpImageMetrics().
+ *  Safe to update from any thread
+ */
+public class ImageMetrics {
+
+	// Upper bounds (inclusive, in ms) of the histogram buckets; the last bucket is for anything longer
+	static final long[] NETWORK_TIME_BUCKETS = {50, 100, 200, 400, 800, 1600, 3200};
+	static final long[] DECODE_TIME_BUCKETS = {2, 5, 10, 20, 50, 100};
+
+	private static class Histogram {
+
+		private final long[] buckets;
+		private final int[] counts;
+		private int count = 0;
+		private long total = 0;
+		private long max = 0;
+
+		Histogram(long[] buckets) {
+			this.buckets = buckets;
+			counts = new int[buckets.length + 1];
+		}
+
+		void add(long value) {
+			int bucket = 0;
+			while (bucket < buckets.length && value > buckets[bucket]) {
+				bucket++;
+			}
+			counts[bucket]++;
+			count++;
+			total += value;
+			max = Math.max(max, value);
+		}
+
+		void dump(PrintWriter writer) {
+			if (count == 0) {
+				writer.println("none");
+				return;
+			}
+			writer.print("avg " + total / count + "ms, max " + max + "ms:");
+			for (int i = 0; i < buckets.length; i++) {
+				writer.print(" <=" + buckets[i] + "ms " + counts[i]);
+			}
+			writer.println(", >" + buckets[buckets.length - 1] + "ms " + counts[buckets.length]);
+		}
+	}
+
+	private int memoryHits = 0;
+	private int memoryMisses = 0;
+	private int diskHits = 0;
+	private int diskMisses = 0;
+	private int downloads = 0;
+	private int failedDownloads = 0;
+	private long networkBytes = 0;
+
+	private final Histogram timeToFirstByte = new Histogram(NETWORK_TIME_BUCKETS);
+	private final Histogram downloadTime = new Histogram(NETWORK_TIME_BUCKETS);
+	private final Histogram decodeTime = new Histogram(DECODE_TIME_BUCKETS);
+
+	public synchronized void onMemoryLookup(boolean hit) {
+		if (hit) {
+			memoryHits++;
+		} else {
+			memoryMisses++;
+		}
+	}
+
+	public synchronized void onDiskLookup(boolean hit) {
+		if (hit) {
+			diskHits++;
+		} else {
+			diskMisses++;
+		}
+	}
+
+	/**
+	 *  @param timeToFirstByte From starting the request to having the response's status
+	 *  @param downloadTime From starting the request to having read all the response
+	 */
+	public synchronized void onDownload(long timeToFirstByte, long downloadTime, int bytes) {
+		downloads++;
+		networkBytes += bytes;
+		this.timeToFirstByte.add(timeToFirstByte);
+		this.downloadTime.add(downloadTime);
+	}
+
+	public synchronized void onDownloadFailed() {
+		failedDownloads++;
+	}
+
+	public synchronized void onDecode(long decodeTime) {
+		this.decodeTime.add(decodeTime);
+	}
+
+	private static String getHitRate(int hits, int misses) {
+		int lookups = hits + misses;
+		return lookups > 0 ? hits + "/" + lookups + " (" + (100 * hits / lookups) + "%)" : "none";
+	}
+
+	public synchronized void dump(PrintWriter writer, String prefix) {
+		writer.println(prefix + "Memory cache hits: " + getHitRate(memoryHits, memoryMisses));
+		writer.println(prefix + "Disk cache hits: " + getHitRate(diskHits, diskMisses));
+		writer.println(prefix + "Downloads: " + downloads + ", failed " + failedDownloads +
+				", " + networkBytes / 1024 + "KB");
+		writer.print(prefix + "Time to first byte: ");
+		timeToFirstByte.dump(writer);
+		writer.print(prefix + "Download time: ");
+		downloadTime.dump(writer);
+		writer.print(prefix + "Decode time: ");
+		decodeTime.dump(writer);
+	}
+}
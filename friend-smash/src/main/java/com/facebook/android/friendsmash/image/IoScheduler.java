@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.image;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+import java.util.LinkedList;
+
+/**
+ *  Runs the app's disk and network loads on a few threads of its own, rather than on the thread
+ *  pool shared with everything else.  Loads are queued in one of three lanes and the threads take
+ *  the next load from the most important lane that has one: loads the game is waiting on, then
+ *  loads for what's on screen, then speculative prefetches.  Prefetches never take up every
+ *  thread, so there's always one free for a more important load.  Queued loads can be cancelled,
+ *  or moved up a lane if something more important turns out to be waiting on them
+ */
+public class IoScheduler {
+
+	public enum Priority {
+		// Something the game is waiting on before it can go on
+		CRITICAL,
+		// Something on screen
+		VISIBLE,
+		// Something that may be needed soon
+		PREFETCH
+	}
+
+	private static final int NUM_PRIORITIES = Priority.values().length;
+
+	/**
+	 *  A load that has been scheduled
+	 */
+	public class Task {
+
+		private final Runnable runnable;
+		private Priority priority;
+		private final long queueTime = SystemClock.uptimeMillis();
+		private boolean started = false;
+		private boolean cancelled = false;
+
+		Task(Runnable runnable, Priority priority) {
+			this.runnable = runnable;
+			this.priority = priority;
+		}
+
+		/**
+		 *  Takes the load out of the queue if it hasn't started, and returns whether it hadn't
+		 */
+		public boolean cancel() {
+			synchronized (IoScheduler.this) {
+				if (started || cancelled) {
+					return false;
+				}
+				cancelled = true;
+				lanes[priority.ordinal()].remove(this);
+				cancelledCounts[priority.ordinal()]++;
+				return true;
+			}
+		}
+
+		/**
+		 *  Moves the load up to the lane of the given priority, if it's still queued in a lower one
+		 */
+		public void raisePriority(Priority priority) {
+			synchronized (IoScheduler.this) {
+				if (started || cancelled || priority.ordinal() >= this.priority.ordinal()) {
+					return;
+				}
+				lanes[this.priority.ordinal()].remove(this);
+				this.priority = priority;
+				enqueue(this);
+			}
+		}
+	}
+
+	private final int maxThreads;
+
+	@SuppressWarnings("unchecked")
+	private final LinkedList<Task>[] lanes = new LinkedList[NUM_PRIORITIES];
+
+	private int numThreads = 0;
+	private int numIdleThreads = 0;
+	private int numRunningPrefetches = 0;
+
+	// Metrics, by priority
+	private final int[] maxQueueDepths = new int[NUM_PRIORITIES];
+	private final int[] startedCounts = new int[NUM_PRIORITIES];
+	private final int[] completedCounts = new int[NUM_PRIORITIES];
+	private final int[] cancelledCounts = new int[NUM_PRIORITIES];
+	private final long[] totalWaitTimes = new long[NUM_PRIORITIES];
+
+	/**
+	 *  @param maxThreads Most loads that are run at once
+	 */
+	public IoScheduler(int maxThreads) {
+		this.maxThreads = maxThreads;
+		for (int i = 0; i < NUM_PRIORITIES; i++) {
+			lanes[i] = new LinkedList<Task>();
+		}
+	}
+
+	/**
+	 *  Queues a load in the lane of the given priority
+	 */
+	public synchronized Task submit(Runnable runnable, Priority priority) {
+		Task task = new Task(runnable, priority);
+		enqueue(task);
+		return task;
+	}
+
+	private void enqueue(Task task) {
+		LinkedList<Task> lane = lanes[task.priority.ordinal()];
+		lane.addLast(task);
+		maxQueueDepths[task.priority.ordinal()] = Math.max(maxQueueDepths[task.priority.ordinal()], lane.size());
+
+		if (numIdleThreads > 0) {
+			notifyAll();
+		} else if (numThreads < maxThreads) {
+			numThreads++;
+			Thread thread = new Thread(new Worker(), "FriendSmash I/O " + numThreads);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 *  Takes the next load to run out of the queue, or returns null if there isn't one that can
+	 *  run now
+	 */
+	private Task dequeue() {
+		for (int i = 0; i < NUM_PRIORITIES; i++) {
+			if (i == Priority.PREFETCH.ordinal() && numRunningPrefetches >= Math.max(maxThreads - 1, 1)) {
+				break;
+			}
+			if (!lanes[i].isEmpty()) {
+				Task task = lanes[i].removeFirst();
+				task.started = true;
+				startedCounts[i]++;
+				totalWaitTimes[i] += SystemClock.uptimeMillis() - task.queueTime;
+				if (task.priority == Priority.PREFETCH) {
+					numRunningPrefetches++;
+				}
+				return task;
+			}
+		}
+		return null;
+	}
+
+	private synchronized void onTaskFinished(Task task) {
+		completedCounts[task.priority.ordinal()]++;
+		if (task.priority == Priority.PREFETCH) {
+			numRunningPrefetches--;
+			if (!lanes[Priority.PREFETCH.ordinal()].isEmpty()) {
+				notifyAll();
+			}
+		}
+	}
+
+	private class Worker implements Runnable {
+		@Override
+		public void run() {
+			Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+			while (true) {
+				Task task;
+				synchronized (IoScheduler.this) {
+					while ((task = dequeue()) == null) {
+						numIdleThreads++;
+						try {
+							IoScheduler.this.wait();
+						} catch (InterruptedException e) {
+							// Keep going, there's no shutting down
+						} finally {
+							numIdleThreads--;
+						}
+					}
+				}
+				try {
+					task.runnable.run();
+				} finally {
+					onTaskFinished(task);
+				}
+			}
+		}
+	}
+
+	/**
+	 *  Returns how many loads of the given priority are queued, not counting those running
+	 */
+	public synchronized int getQueueDepth(Priority priority) {
+		return lanes[priority.ordinal()].size();
+	}
+
+	/**
+	 *  Returns the most loads of the given priority that were ever queued at once
+	 */
+	public synchronized int getMaxQueueDepth(Priority priority) {
+		return maxQueueDepths[priority.ordinal()];
+	}
+
+	public synchronized int getCompletedCount(Priority priority) {
+		return completedCounts[priority.ordinal()];
+	}
+
+	public synchronized int getCancelledCount(Priority priority) {
+		return cancelledCounts[priority.ordinal()];
+	}
+
+	/**
+	 *  Returns how long the loads of the given priority that have started spent queued, on average,
+	 *  in milliseconds
+	 */
+	public synchronized long getAverageWaitTime(Priority priority) {
+		int started = startedCounts[priority.ordinal()];
+		return started > 0 ? totalWaitTimes[priority.ordinal()] / started : 0;
+	}
+
+	/**
+	 *  Returns the queue depths and counts of every lane, for logging
+	 */
+	public synchronized String getSummary() {
+		StringBuilder summary = new StringBuilder();
+		for (Priority priority : Priority.values()) {
+			if (summary.length() > 0) {
+				summary.append(", ");
+			}
+			int i = priority.ordinal();
+			summary.append(priority.name().toLowerCase())
+					.append(": ").append(lanes[i].size()).append(" queued (max ").append(maxQueueDepths[i])
+					.append("), ").append(completedCounts[i]).append(" done, ")
+					.append(cancelledCounts[i]).append(" cancelled, ")
+					.append(getAverageWaitTime(priority)).append("ms wait");
+		}
+		return summary.toString();
+	}
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.image;
+
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.facebook.android.friendsmash.FriendSmashApplication;
+import com.facebook.android.friendsmash.http.HttpTransport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ *  Downloads profile pictures in a single request.  Rather than asking the Graph API where the
+ *  picture is (redirect=false) and then fetching it, the picture URL is requested directly and
+ *  its redirect to the CDN followed, and the CDN URL it ends up at is remembered per user id and
+ *  size, so the next download of the same picture goes straight to the CDN.  The picture is
+ *  decoded by the BitmapDecoder at the size it was asked for as it's read from the response, and
+ *  the bytes read are kept on the side for the AvatarCache to write to disk
+ */
+public class PictureUrlResolver {
+
+	/**
+	 *  A downloaded picture, both decoded and as it was downloaded
+	 */
+	public static class Picture {
+		public final Bitmap bitmap;
+		public final byte[] encodedImage;
+
+		Picture(Bitmap bitmap, byte[] encodedImage) {
+			this.bitmap = bitmap;
+			this.encodedImage = encodedImage;
+		}
+	}
+
+	// CDN URLs are signed and eventually expire, so don't hold on to them for too long
+	static final long RESOLVED_URL_TTL = 60 * 60 * 1000;
+
+	private static final int MAX_RESOLVED_URLS = 100;
+
+	public static final String GRAPH_URL = "https://graph.facebook.com/";
+
+	private static class ResolvedUrl {
+		final URL url;
+		final long expiryTime;
+
+		ResolvedUrl(URL url, long expiryTime) {
+			this.url = url;
+			this.expiryTime = expiryTime;
+		}
+	}
+
+	private final LruCache<String, ResolvedUrl> resolvedUrls = new LruCache<String, ResolvedUrl>(MAX_RESOLVED_URLS);
+
+	private volatile HttpTransport httpTransport;
+	private final String graphUrl;
+	private final BitmapDecoder bitmapDecoder;
+	private final ImageMetrics imageMetrics;
+
+	/**
+	 *  @param graphUrl Where the Graph API is, normally GRAPH_URL
+	 */
+	public PictureUrlResolver(HttpTransport httpTransport, String graphUrl, BitmapDecoder bitmapDecoder,
+			ImageMetrics imageMetrics) {
+		this.httpTransport = httpTransport;
+		this.graphUrl = graphUrl;
+		this.bitmapDecoder = bitmapDecoder;
+		this.imageMetrics = imageMetrics;
+	}
+
+	/**
+	 *  Makes the downloads from now on with the given transport.  The URLs resolved with the
+	 *  previous one are forgotten, since they may point at a server the new one doesn't reach
+	 */
+	public void setHttpTransport(HttpTransport httpTransport) {
+		this.httpTransport = httpTransport;
+		resolvedUrls.evictAll();
+	}
+
+	private static String getKey(String userId, int size) {
+		return userId + "_" + size;
+	}
+
+	/**
+	 *  Downloads and decodes the picture of the given user, at the given size in pixels.  Returns
+	 *  null if it couldn't be downloaded or decoded.  Not to be called on the UI thread
+	 */
+	public Picture download(String userId, int size) {
+		String key = getKey(userId, size);
+
+		ResolvedUrl resolvedUrl = resolvedUrls.get(key);
+		if (resolvedUrl != null) {
+			if (SystemClock.elapsedRealtime() < resolvedUrl.expiryTime) {
+				Picture picture = download(resolvedUrl.url, size, null);
+				if (picture != null) {
+					return picture;
+				}
+			}
+			// Expired, or the CDN no longer has it, so resolve it again
+			resolvedUrls.remove(key);
+		}
+
+		try {
+			URL pictureUrl = new URL(graphUrl + userId +
+					"/picture?width=" + size + "&height=" + size);
+			return download(pictureUrl, size, key);
+		} catch (IOException e) {
+			Log.e(FriendSmashApplication.TAG, e.toString());
+			return null;
+		}
+	}
+
+	/**
+	 *  Downloads the picture at the given URL, following any redirects, and decodes it at no less
+	 *  than the given size.  If a key is given, the URL the picture was finally downloaded from is
+	 *  remembered under it
+	 */
+	private Picture download(URL url, int size, String key) {
+		HttpTransport.Response response = null;
+		try {
+			long startTime = SystemClock.uptimeMillis();
+			response = httpTransport.get(url);
+			long timeToFirstByte = SystemClock.uptimeMillis() - startTime;
+			if (response.getStatusCode() != HttpURLConnection.HTTP_OK) {
+				imageMetrics.onDownloadFailed();
+				return null;
+			}
+
+			int contentLength = response.getContentLength();
+			ByteArrayOutputStream encodedImage = new ByteArrayOutputStream(contentLength > 0 ? contentLength : 8192);
+			InputStream body = new CopyingInputStream(response.getBody(), encodedImage);
+			Bitmap bitmap = bitmapDecoder.decodeStream(body, size, size);
+			// The decoder stops where the image does, but the disk cache needs every byte
+			drain(body);
+			imageMetrics.onDownload(timeToFirstByte, SystemClock.uptimeMillis() - startTime, encodedImage.size());
+			if (bitmap == null) {
+				return null;
+			}
+
+			if (key != null) {
+				resolvedUrls.put(key, new ResolvedUrl(response.getUrl(),
+						SystemClock.elapsedRealtime() + RESOLVED_URL_TTL));
+			}
+			return new Picture(bitmap, encodedImage.toByteArray());
+		} catch (IOException e) {
+			Log.e(FriendSmashApplication.TAG, e.toString());
+			imageMetrics.onDownloadFailed();
+			return null;
+		} finally {
+			if (response != null) {
+				response.close();
+			}
+		}
+	}
+
+	private static void drain(InputStream inputStream) throws IOException {
+		byte[] buffer = new byte[8192];
+		while (inputStream.read(buffer) != -1) {
+			// Kept by the CopyingInputStream
+		}
+	}
+
+	/**
+	 *  Copies whatever is read through it to an output stream
+	 */
+	private static class CopyingInputStream extends FilterInputStream {
+
+		private final OutputStream copy;
+
+		CopyingInputStream(InputStream inputStream, OutputStream copy) {
+			super(inputStream);
+			this.copy = copy;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				copy.write(b);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int count) throws IOException {
+			int read = super.read(buffer, offset, count);
+			if (read > 0) {
+				copy.write(buffer, offset, read);
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long count) throws IOException {
+			// Skipped bytes have to be copied too
+			byte[] buffer = new byte[(int) Math.min(count, 8192)];
+			int read = read(buffer, 0, buffer.length);
+			return Math.max(read, 0);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
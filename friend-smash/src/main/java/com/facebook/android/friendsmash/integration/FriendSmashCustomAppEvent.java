@@ -27,4 +27,12 @@ package com.facebook.android.friendsmash.integration;
 public class FriendSmashCustomAppEvent {
     public static String EVENT_NAME_GAME_PLAYED = "game_played";
     public static String EVENT_PARAM_SCORE = "score";
+    public static String EVENT_NAME_GAME_FRAME_STATS = "game_frame_stats";
+    public static String EVENT_PARAM_FRAMES = "frames";
+    public static String EVENT_PARAM_JANKY_FRAMES = "janky_frames";
+    public static String EVENT_PARAM_AVERAGE_FRAME_TIME = "average_frame_time";
+    public static String EVENT_PARAM_WORST_STALL = "worst_stall";
+    public static String EVENT_PARAM_WORST_STALL_SPRITE_COUNT = "worst_stall_sprite_count";
+    public static String EVENT_PARAM_FRAME_TIME_HISTOGRAM = "frame_time_histogram";
+    public static String EVENT_PARAM_JANK_BY_SPRITE_COUNT = "jank_by_sprite_count";
 }
@@ -23,6 +23,7 @@ package com.facebook.android.friendsmash.integration;
 import android.content.Context;
 import android.os.Bundle;
 
+import com.facebook.android.friendsmash.FrameStats;
 import com.facebook.appevents.AppEventsLogger;
 
 /**
@@ -49,4 +50,20 @@ public class FriendSmashEventsLogger {
         params.putInt(FriendSmashCustomAppEvent.EVENT_PARAM_SCORE, score);
         logger.logEvent(FriendSmashCustomAppEvent.EVENT_NAME_GAME_PLAYED, params);
     }
+
+    /**
+     * Logs a custom App Event with the frame timing of the game that has just been played, so
+     * performance in the field can be followed in the App Events dashboard.
+     */
+    public void logGameFrameStatsEvent(FrameStats frameStats) {
+        Bundle params = new Bundle();
+        params.putInt(FriendSmashCustomAppEvent.EVENT_PARAM_FRAMES, frameStats.getFrames());
+        params.putInt(FriendSmashCustomAppEvent.EVENT_PARAM_JANKY_FRAMES, frameStats.getJankyFrames());
+        params.putLong(FriendSmashCustomAppEvent.EVENT_PARAM_AVERAGE_FRAME_TIME, frameStats.getAverageFrameTime());
+        params.putLong(FriendSmashCustomAppEvent.EVENT_PARAM_WORST_STALL, frameStats.getWorstStall());
+        params.putInt(FriendSmashCustomAppEvent.EVENT_PARAM_WORST_STALL_SPRITE_COUNT, frameStats.getWorstStallSpriteCount());
+        params.putString(FriendSmashCustomAppEvent.EVENT_PARAM_FRAME_TIME_HISTOGRAM, frameStats.getHistogramString());
+        params.putString(FriendSmashCustomAppEvent.EVENT_PARAM_JANK_BY_SPRITE_COUNT, frameStats.getJankBySpriteCountString());
+        logger.logEvent(FriendSmashCustomAppEvent.EVENT_NAME_GAME_FRAME_STATS, params);
+    }
 }
@@ -117,7 +117,7 @@ public class GameRequest implements FacebookCallback<GameRequestDialog.Result> {
                         Log.e(FriendSmashApplication.TAG, "Deleting consumed Request failed: " + error.getErrorMessage());
                     }
                 });
-        deleteRequestRequest.executeAsync();
+        deleteRequestRequest.executeBatchedAsync();
     }
 
     /**
@@ -141,7 +141,7 @@ public class GameRequest implements FacebookCallback<GameRequestDialog.Result> {
                     JSONObject fromObject = response.getJSONObject().optJSONObject("from");
                     String userId = fromObject.optString("id");
                     GraphAPICall userCall = GraphAPICall.callUser(userId, "first_name", callback);
-                    userCall.executeAsync();
+                    userCall.executeBatchedAsync();
                 }
             }
 
@@ -150,6 +150,7 @@ public class GameRequest implements FacebookCallback<GameRequestDialog.Result> {
                 Log.e(FriendSmashApplication.TAG, error.toString());
             }
         });
+        // Not batched, so it reaches Graph API before the request is deleted, see deleteRequest()
         requestCall.executeAsync();
     }
 
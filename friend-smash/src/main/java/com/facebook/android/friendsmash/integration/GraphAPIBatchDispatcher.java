@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash.integration;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.facebook.GraphRequest;
+import com.facebook.GraphRequestBatch;
+
+/**
+ * Collects the GraphRequests made within BATCH_WINDOW of each other into a single
+ * GraphRequestBatch, so they're sent in one HTTP request rather than waking up the radio for each
+ * of them. A batch is sent once the window is over, or straight away once it holds the maximum
+ * number of requests Graph API accepts in a batch. Facebook SDK calls back each request of a
+ * batch with its own response, so every GraphAPICall gets its result as if it was made on its own.
+ * See https://developers.facebook.com/docs/graph-api/making-multiple-requests for more details
+ * on batching.
+ */
+class GraphAPIBatchDispatcher {
+
+    /**
+     * How long the first request of a batch waits for others to be sent with, in milliseconds
+     */
+    static final long BATCH_WINDOW = 50;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Requests waiting for the window to be over, or null if there are none
+     */
+    private GraphRequestBatch pendingBatch;
+
+    private final Runnable sendPendingBatch = new Runnable() {
+        @Override
+        public void run() {
+            sendPendingBatch();
+        }
+    };
+
+    /**
+     * Sends the request with the others made within BATCH_WINDOW
+     */
+    synchronized void dispatch(GraphRequest request) {
+        if (pendingBatch == null) {
+            pendingBatch = new GraphRequestBatch();
+            handler.postDelayed(sendPendingBatch, BATCH_WINDOW);
+        }
+        pendingBatch.add(request);
+        if (pendingBatch.size() >= GraphRequest.MAXIMUM_BATCH_SIZE) {
+            handler.removeCallbacks(sendPendingBatch);
+            sendPendingBatch();
+        }
+    }
+
+    private synchronized void sendPendingBatch() {
+        GraphRequestBatch batch = pendingBatch;
+        pendingBatch = null;
+        if (batch == null) {
+            return;
+        }
+        if (batch.size() == 1) {
+            // Nothing came along, so there's no need for the overhead of a batch
+            batch.get(0).executeAsync();
+        } else {
+            batch.executeAsync();
+        }
+    }
+}
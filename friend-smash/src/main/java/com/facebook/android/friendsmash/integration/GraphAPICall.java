@@ -21,6 +21,9 @@
 package com.facebook.android.friendsmash.integration;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
 import android.util.Log;
 
 import com.facebook.AccessToken;
@@ -28,12 +31,20 @@ import com.facebook.FacebookRequestError;
 import com.facebook.GraphRequest;
 import com.facebook.GraphRequestBatch;
 import com.facebook.GraphResponse;
+import com.facebook.HttpMethod;
 import com.facebook.android.friendsmash.FriendSmashApplication;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 /**
  * This class is handling all GraphAPI calls made in Friend Smash!
  * Simply put it wraps Facebook SDK's GraphRequest class providing convenience methods to make calls
@@ -51,6 +62,57 @@ public class GraphAPICall {
      */
     private static final String PARAM_FIELDS = "fields";
 
+    /**
+     * How long a cached response is used without asking Graph API again, unless a different
+     * time was set for its path with setCacheTimeToLive()
+     */
+    private static final long DEFAULT_CACHE_TTL = 60 * 1000;
+
+    /**
+     * How long a cached response that's no longer fresh is still delivered while it's being
+     * fetched again
+     */
+    private static final long MAX_CACHE_STALENESS = 24 * 60 * 60 * 1000;
+
+    /**
+     * Responses of the calls that use the cache, see setUseCache()
+     */
+    private static final GraphResponseCache responseCache = new GraphResponseCache();
+
+    /**
+     * How long responses stay fresh in the cache, by path
+     */
+    private static final HashMap<String, Long> cacheTimeToLives = new HashMap<String, Long>();
+
+    static {
+        // The player's own profile and friends rarely change during a session, their scores only
+        // change through publishScore(), which clears them from the cache anyway
+        cacheTimeToLives.put("me", 10 * 60 * 1000L);
+        cacheTimeToLives.put("me/friends", 10 * 60 * 1000L);
+        cacheTimeToLives.put("me/scores", 10 * 60 * 1000L);
+    }
+
+    private static final Handler uiHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Sends the calls made with executeBatchedAsync() together, see GraphAPIBatchDispatcher
+     */
+    private static final GraphAPIBatchDispatcher batchDispatcher = new GraphAPIBatchDispatcher();
+
+    /**
+     * GET calls being made, by token, path and parameters. The same call made again while one
+     * of these is in flight doesn't go to Graph API, but waits for the response of this one.
+     */
+    private static final HashMap<String, GraphAPICall> callsInFlight = new HashMap<String, GraphAPICall>();
+
+    /**
+     * The data of all the pages of the responses that came in several, by their first page, see
+     * getPagedDataFromResponse(). Kept here rather than on the SDK's request, so nothing else
+     * holding the response sees it change, and dropped along with the response.
+     */
+    private static final Map<GraphResponse, GraphPagedResult> pagedResults =
+            new WeakHashMap<GraphResponse, GraphPagedResult>();
+
     /**
      * Facebook SDK's class for handling Graph API calls
      * See https://developers.facebook.com/docs/reference/android/current/class/GraphRequest/
@@ -68,6 +130,60 @@ public class GraphAPICall {
      */
     private GraphAPICallback graphAPICallback;
 
+    /**
+     * Whether the response is cached, and taken from the cache when possible
+     */
+    private boolean useCache = false;
+
+    /**
+     * Path and key of the response in the cache, set when the call is made
+     */
+    private String cachePath;
+    private String cacheKey;
+
+    /**
+     * The cache's generation when the call was made, see GraphResponseCache.put()
+     */
+    private long cacheGeneration;
+
+    /**
+     * The cached response delivered while the call is being made, if any
+     */
+    private GraphResponseCache.Entry staleEntry;
+
+    /**
+     * ETags of the pages received so far, or null if a page came without one
+     */
+    private List<String> pageETags = new ArrayList<String>();
+
+    /**
+     * Path of the cached responses made out of date by this call, if it writes anything
+     */
+    private String invalidatedPath;
+
+    /**
+     * Key of this call in callsInFlight while it's being made, and the identical calls made in
+     * the meantime, which are given its response
+     */
+    private String inFlightKey;
+    private final List<GraphAPICall> followers = new ArrayList<GraphAPICall>();
+
+    /**
+     * Told once this call has been given the response of an identical call, see executeBatchAsync()
+     */
+    private Runnable onDeliveredFromCallInFlight;
+
+    /**
+     * Pages received so far, and how many of them were passed to a GraphAPIPageCallback
+     */
+    private final List<GraphResponse> pages = new ArrayList<GraphResponse>();
+    private int pagesDelivered = 0;
+
+    /**
+     * The data of all the pages received so far
+     */
+    private final GraphPagedResult pagedData = new GraphPagedResult();
+
     /**
      * Private constructor to enforce usage of static convenience methods creatic a specific call
      */
@@ -84,10 +200,165 @@ public class GraphAPICall {
     }
 
     /**
-     * Executes the call asynchronously
+     * Executes the call asynchronously. If an identical GET call is already being made, this
+     * one isn't made again, but is given the response of that one, with all of its pages.
      */
     public void executeAsync() {
-        graphRequest.executeAsync();
+        if (!deliverFromCache() && !joinCallInFlight()) {
+            graphRequest.executeAsync();
+        }
+    }
+
+    /**
+     * Same as executeAsync(), but rather than making the call straight away, waits for a moment
+     * for other calls to make in the same batch. Useful for calls that aren't in a hurry, and
+     * tend to be made together with others. Further pages of the response aren't batched.
+     * See https://developers.facebook.com/docs/graph-api/making-multiple-requests
+     */
+    public void executeBatchedAsync() {
+        if (!deliverFromCache() && !joinCallInFlight()) {
+            batchDispatcher.dispatch(graphRequest);
+        }
+    }
+
+    /**
+     * Makes the call keep its response in the cache and use the cached one when possible.
+     * A cached response is delivered without calling Graph API for as long as it's fresh, see
+     * setCacheTimeToLive(). Once it isn't, it's still delivered straight away, and the call is
+     * made again: handleResponse() is then called a second time with the new response, unless
+     * it turns out to be the same as the cached one. Errors of that second call are only logged.
+     */
+    public void setUseCache(boolean useCache) {
+        this.useCache = useCache;
+    }
+
+    /**
+     * Sets how long the cached responses of calls to the given path are fresh for
+     */
+    public static void setCacheTimeToLive(String path, long timeToLive) {
+        synchronized (cacheTimeToLives) {
+            cacheTimeToLives.put(path, timeToLive);
+        }
+    }
+
+    /**
+     * Removes all the cached responses, e.g. once the user has logged out
+     */
+    public static void clearCache() {
+        responseCache.clear();
+    }
+
+    /**
+     * Delivers the cached response, if the call uses the cache and there's one. Returns true if
+     * it's fresh, so the call doesn't need to be made.
+     */
+    private boolean deliverFromCache() {
+        if (invalidatedPath != null) {
+            // So nothing reads what this is about to change while it's being changed
+            responseCache.invalidate(invalidatedPath);
+        }
+        cacheGeneration = responseCache.getGeneration();
+        if (!useCache) {
+            return false;
+        }
+
+        cachePath = graphRequest.getGraphPath();
+        cacheKey = getCacheKey(graphRequest);
+        final GraphResponseCache.Entry entry = responseCache.get(cacheKey);
+        if (entry == null) {
+            return false;
+        }
+        long age = System.currentTimeMillis() - entry.time;
+        if (age >= getCacheTimeToLive(entry.path) + MAX_CACHE_STALENESS) {
+            return false;
+        }
+
+        // Delivered later, like the response of a call would be
+        uiHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                graphAPICallback.handleResponse(entry.response);
+            }
+        });
+        if (age < getCacheTimeToLive(entry.path)) {
+            return true;
+        }
+        staleEntry = entry;
+        return false;
+    }
+
+    /**
+     * Waits for the response of an identical GET call, if one is in flight, rather than making
+     * this one. Returns true if it does, otherwise this call is the one others wait for.
+     */
+    private boolean joinCallInFlight() {
+        if (graphRequest.getHttpMethod() != HttpMethod.GET) {
+            return false;
+        }
+        AccessToken token = graphRequest.getAccessToken();
+        String key = (token != null ? token.getToken() : "") + " " + getCacheKey(graphRequest);
+        synchronized (callsInFlight) {
+            final GraphAPICall callInFlight = callsInFlight.get(key);
+            if (callInFlight != null) {
+                callInFlight.followers.add(this);
+                if (!callInFlight.pages.isEmpty()) {
+                    // Catch up with the pages that arrived already
+                    uiHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            deliverPages(callInFlight.pages);
+                        }
+                    });
+                }
+                return true;
+            }
+            callsInFlight.put(key, this);
+            inFlightKey = key;
+            return false;
+        }
+    }
+
+    /**
+     * Returns this call and those waiting for its response, so it can be given to all of them.
+     * Once the response is complete, they're taken out of callsInFlight.
+     */
+    private List<GraphAPICall> getCallsSharingResponse(boolean complete) {
+        List<GraphAPICall> calls = new ArrayList<GraphAPICall>();
+        calls.add(this);
+        if (inFlightKey != null) {
+            synchronized (callsInFlight) {
+                if (complete) {
+                    callsInFlight.remove(inFlightKey);
+                }
+                calls.addAll(followers);
+            }
+        }
+        return calls;
+    }
+
+    private static long getCacheTimeToLive(String path) {
+        synchronized (cacheTimeToLives) {
+            Long timeToLive = cacheTimeToLives.get(path);
+            return timeToLive != null ? timeToLive : DEFAULT_CACHE_TTL;
+        }
+    }
+
+    /**
+     * Responses are cached by user, path and parameters, so that another player logging in on
+     * the same device never gets them
+     */
+    private static String getCacheKey(GraphRequest request) {
+        StringBuilder key = new StringBuilder();
+        AccessToken token = request.getAccessToken();
+        key.append(token != null ? token.getUserId() : "").append(' ');
+        key.append(request.getHttpMethod()).append(' ').append(request.getGraphPath());
+        Bundle params = request.getParameters();
+        String[] names = params.keySet().toArray(new String[params.size()]);
+        Arrays.sort(names);
+        for (String name : names) {
+            key.append(' ').append(name).append('=').append(params.get(name));
+        }
+        return key.toString();
     }
 
     /**
@@ -161,6 +432,7 @@ public class GraphAPICall {
      * how deleting Graph API objects works.
      */
     private void createDeleteObjectRequest(String objectId) {
+        invalidatedPath = objectId;
         AccessToken token = AccessToken.getCurrentAccessToken();
         graphRequest = GraphRequest.newDeleteObjectRequest(token, objectId, new GraphRequest.Callback() {
             @Override
@@ -176,6 +448,7 @@ public class GraphAPICall {
      * how publishing Graph API objects works.
      */
     private void createPublishScoreRequest(int score) {
+        invalidatedPath = "scores";
         AccessToken token = AccessToken.getCurrentAccessToken();
         JSONObject object = new JSONObject();
         try {
@@ -199,24 +472,127 @@ public class GraphAPICall {
      * the remaining 15 objects.
      * You can specify page size using 'limit' parameter when making call. If page size is not
      * specified it defaults to 25.
+     * Each page is passed on as soon as it arrives if the callback is a GraphAPIPageCallback.
      * See https://developers.facebook.com/docs/graph-api/using-graph-api/#paging for more details
      * on paging.
      */
     private void handleResponse (GraphResponse response) {
+        if (invalidatedPath != null) {
+            responseCache.invalidate(invalidatedPath);
+        }
+
         FacebookRequestError error = response.getError();
         if (error != null) {
             Log.e(FriendSmashApplication.TAG, error.toString());
-            graphAPICallback.handleError(error);
+            for (GraphAPICall call : getCallsSharingResponse(true)) {
+                call.deliverError(error);
+            }
         } else if (response != null) {
             addDataToResponse(response);
+            addPageETag(response);
+            pages.add(response);
             if (hasNextPage(response)) {
+                for (GraphAPICall call : getCallsSharingResponse(false)) {
+                    call.deliverPages(pages);
+                }
                 callNextPage(response);
             } else {
-                graphAPICallback.handleResponse(graphResponse);
+                List<GraphAPICall> calls = getCallsSharingResponse(true);
+                // Every call gets the pages it hasn't had yet first, as the first page stands for
+                // all of them once getPagedDataFromResponse() finds their data
+                for (GraphAPICall call : calls) {
+                    call.deliverPages(pages);
+                }
+                if (pages.size() > 1) {
+                    synchronized (pagedResults) {
+                        pagedResults.put(graphResponse, pagedData);
+                    }
+                }
+                for (GraphAPICall call : calls) {
+                    call.deliverResponse(graphResponse, pageETags, pages, cacheGeneration);
+                }
             }
         }
     }
 
+    /**
+     * Passes the pages not passed yet to the callback, if it handles pages one by one. Pages
+     * of a call that already delivered a cached response aren't, as they'd replace that with
+     * less data, until the call is complete.
+     */
+    private void deliverPages(List<GraphResponse> receivedPages) {
+        if (!(graphAPICallback instanceof GraphAPIPageCallback) || staleEntry != null) {
+            return;
+        }
+        while (pagesDelivered < receivedPages.size()) {
+            ((GraphAPIPageCallback) graphAPICallback).handlePage(receivedPages.get(pagesDelivered++));
+        }
+    }
+
+    /**
+     * Passes the complete response, with all of its pages, to the callback. The generation is
+     * that of the call the response is to, which for a call that waited for an identical one
+     * in flight was made before this one
+     */
+    private void deliverResponse(GraphResponse response, List<String> etags, List<GraphResponse> receivedPages,
+                                 long generation) {
+        deliverPages(receivedPages);
+        graphResponse = response;
+        pageETags = etags;
+        if (cacheKey != null) {
+            cacheAndDeliverResponse(generation);
+        } else {
+            graphAPICallback.handleResponse(graphResponse);
+        }
+        if (onDeliveredFromCallInFlight != null) {
+            onDeliveredFromCallInFlight.run();
+        }
+    }
+
+    private void deliverError(FacebookRequestError error) {
+        if (staleEntry == null) {
+            graphAPICallback.handleError(error);
+        }
+        if (onDeliveredFromCallInFlight != null) {
+            onDeliveredFromCallInFlight.run();
+        }
+    }
+
+    /**
+     * Keeps the ETag of a page, which Graph API sends in the response headers, see
+     * https://developers.facebook.com/docs/graph-api/using-graph-api/ for more details on ETags.
+     */
+    private void addPageETag(GraphResponse response) {
+        if (pageETags == null) {
+            return;
+        }
+        String etag = response.getConnection() != null ? response.getConnection().getHeaderField("ETag") : null;
+        if (etag != null) {
+            pageETags.add(etag);
+        } else {
+            pageETags = null;
+        }
+    }
+
+    /**
+     * Caches the complete response, unless what it's the response to was made out of date while
+     * it was being made, and delivers it unless it's the same as the one that was already
+     * delivered from the cache
+     */
+    private void cacheAndDeliverResponse(long generation) {
+        String etag = null;
+        if (pageETags != null && !pageETags.isEmpty()) {
+            etag = TextUtils.join(",", pageETags);
+        }
+        GraphResponseCache.Entry entry = new GraphResponseCache.Entry(cachePath, graphResponse, etag,
+                System.currentTimeMillis());
+        responseCache.put(cacheKey, entry, generation);
+
+        if (staleEntry == null || !staleEntry.hasSameContent(entry)) {
+            graphAPICallback.handleResponse(graphResponse);
+        }
+    }
+
     /**
      * Checks if GraphResponse has the next page.
      * See https://developers.facebook.com/docs/graph-api/using-graph-api/#paging for more details
@@ -245,21 +621,18 @@ public class GraphAPICall {
     }
 
     /**
-     * Adds data from specified GraphResponse to stored graphResponse variable. This is used to
-     * combine the data from multiple pages into single GraphResponse object.
+     * Adds data from specified GraphResponse to stored pagedData variable, the first GraphResponse
+     * being the one passed to the callback. This is used to combine the data from multiple pages
+     * without copying or changing any of them, see GraphPagedResult.
      * See https://developers.facebook.com/docs/graph-api/using-graph-api/#paging for more details
      * on paging.
      */
     private void addDataToResponse(GraphResponse response) {
         if (graphResponse == null) {
             graphResponse = response;
-        } else {
-            JSONArray newData = response.getJSONObject().optJSONArray("data");
-            JSONArray existingData = graphResponse.getJSONObject().optJSONArray("data");
-            for (int i = 0; i < newData.length(); i++) {
-                existingData.put(newData.opt(i));
-            }
         }
+        JSONObject graphObject = response.getJSONObject();
+        pagedData.addPage(graphObject != null ? graphObject.optJSONArray("data") : null);
     }
 
     /**
@@ -390,12 +763,102 @@ public class GraphAPICall {
         return batch;
     }
 
+    /**
+     * Executes several GraphAPICall objects asynchronously in a single batch, like
+     * createRequestBatch(), but takes the responses of those using the cache from it when
+     * possible, see setUseCache(). The callback is called once all of the calls that did need to be
+     * made have completed, or straight after the cached responses were delivered if none did.
+     */
+    public static void executeBatchAsync (GraphRequestBatch.Callback callback, GraphAPICall... requests) {
+        GraphRequestBatch batch = new GraphRequestBatch();
+        final BatchCompletion completion = new BatchCompletion(batch, callback);
+        for (GraphAPICall request : requests) {
+            if (request == null || request.deliverFromCache()) {
+                continue;
+            }
+            if (request.joinCallInFlight()) {
+                // The batch isn't complete until this one has its response too
+                completion.pending++;
+                request.onDeliveredFromCallInFlight = completion;
+            } else {
+                batch.add(request.graphRequest);
+            }
+        }
+        if (batch.isEmpty()) {
+            uiHandler.post(completion);
+        } else {
+            batch.addCallback(new GraphRequestBatch.Callback() {
+                @Override
+                public void onBatchCompleted(GraphRequestBatch batch) {
+                    completion.run();
+                }
+            });
+            batch.executeAsync();
+        }
+    }
+
+    /**
+     * Calls the callback of a batch once the batch itself and the calls of the batch that waited
+     * for identical calls in flight have all completed
+     */
+    private static class BatchCompletion implements Runnable {
+        private final GraphRequestBatch batch;
+        private final GraphRequestBatch.Callback callback;
+
+        // The batch itself, and each call waiting for a call in flight
+        int pending = 1;
+
+        BatchCompletion(GraphRequestBatch batch, GraphRequestBatch.Callback callback) {
+            this.batch = batch;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            pending--;
+            if (pending == 0) {
+                callback.onBatchCompleted(batch);
+            }
+        }
+    }
+
     /**
      * Helper method to extract JSONArray with data returned in GraphResponse.
-     * Useful for example for extracting friends data returned in GraphResponse for /me/friends call
+     * Useful for example for extracting friends data returned in GraphResponse for /me/friends call.
+     * If the response came in several pages this copies all of them into a new JSONArray, see
+     * getPagedDataFromResponse() to go through them without doing so.
      */
     public static JSONArray getDataFromResponse(GraphResponse response) {
+        GraphPagedResult pagedData = getPagedResult(response);
+        if (pagedData != null) {
+            return pagedData.toJSONArray();
+        }
         JSONObject graphObject = response.getJSONObject();
         return graphObject.optJSONArray("data");
     }
+
+    /**
+     * Helper method to extract the data returned in GraphResponse, with all of its pages, as a
+     * GraphPagedResult. Useful for going through long lists, like the scores for /{app-id}/scores
+     * call.
+     */
+    public static GraphPagedResult getPagedDataFromResponse(GraphResponse response) {
+        GraphPagedResult pagedData = getPagedResult(response);
+        if (pagedData != null) {
+            return pagedData;
+        }
+        pagedData = new GraphPagedResult();
+        JSONObject graphObject = response.getJSONObject();
+        pagedData.addPage(graphObject != null ? graphObject.optJSONArray("data") : null);
+        return pagedData;
+    }
+
+    /**
+     * Returns the data of all the pages of a response that came in several, or null
+     */
+    private static GraphPagedResult getPagedResult(GraphResponse response) {
+        synchronized (pagedResults) {
+            return pagedResults.get(response);
+        }
+    }
 }
\ No newline at end of file
@@ -29,7 +29,8 @@ import com.facebook.GraphResponse;
  */
 public interface GraphAPICallback {
     /**
-     * Called when GraphAPICall returned successfully.
+     * Called when GraphAPICall returned successfully. Calls using the cache can have it called
+     * twice: with the cached response, and then with a newer one, see GraphAPICall.setUseCache().
      */
     void handleResponse (GraphResponse response);
 
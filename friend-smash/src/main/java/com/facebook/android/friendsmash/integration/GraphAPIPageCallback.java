@@ -0,0 +1,38 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash.integration;
+
+import com.facebook.GraphResponse;
+
+/**
+ * Callback for Graph API calls whose results come in several pages, to handle each page as soon
+ * as it arrives rather than waiting for all of them. handleResponse() is still called once the
+ * last page has arrived, with the data of all the pages, and signals that the call is complete.
+ * See https://developers.facebook.com/docs/graph-api/using-graph-api/#paging for more details
+ * on paging.
+ */
+public interface GraphAPIPageCallback extends GraphAPICallback {
+    /**
+     * Called with each page of the response, in order, as it arrives. Not called when the
+     * complete response is taken from the cache, see GraphAPICall.setUseCache().
+     */
+    void handlePage (GraphResponse page);
+}
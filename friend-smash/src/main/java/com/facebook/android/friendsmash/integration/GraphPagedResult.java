@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash.integration;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The data of all the pages of a Graph API response, seen as a single list. Each page keeps its
+ * own JSONArray, as it came from the Facebook SDK and without ever changing it, so adding a page
+ * doesn't copy anything. Elements are looked up by index across all the pages, or iterated over,
+ * without putting them all in one JSONArray.
+ * See https://developers.facebook.com/docs/graph-api/using-graph-api/#paging for more details
+ * on paging.
+ */
+public class GraphPagedResult implements Iterable<JSONObject> {
+
+    private final List<JSONArray> pages = new ArrayList<JSONArray>();
+
+    /**
+     * Index of the first element of each page, followed by the total number of elements
+     */
+    private final List<Integer> pageStarts = new ArrayList<Integer>(Arrays.asList(0));
+
+    /**
+     * Adds the data of the next page
+     */
+    void addPage(JSONArray data) {
+        if (data == null || data.length() == 0) {
+            return;
+        }
+        pages.add(data);
+        pageStarts.add(length() + data.length());
+    }
+
+    /**
+     * Total number of elements in all the pages
+     */
+    public int length() {
+        return pageStarts.get(pageStarts.size() - 1);
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Returns the data of the given page, as it came in the response
+     */
+    public JSONArray getPage(int page) {
+        return pages.get(page);
+    }
+
+    /**
+     * Returns the element at the given index across all the pages, or null if there's none
+     */
+    public Object opt(int index) {
+        if (index < 0 || index >= length()) {
+            return null;
+        }
+        // Index of the page that starts at or before the element
+        int page = Collections.binarySearch(pageStarts, index);
+        if (page < 0) {
+            page = -page - 2;
+        }
+        return pages.get(page).opt(index - pageStarts.get(page));
+    }
+
+    /**
+     * Same as above, for elements that are JSON objects
+     */
+    public JSONObject optJSONObject(int index) {
+        Object element = opt(index);
+        return element instanceof JSONObject ? (JSONObject) element : null;
+    }
+
+    /**
+     * Iterates over the JSON objects of all the pages in order
+     */
+    @Override
+    public Iterator<JSONObject> iterator() {
+        return new Iterator<JSONObject>() {
+            private int page = 0;
+            private int indexInPage = 0;
+
+            @Override
+            public boolean hasNext() {
+                return page < pages.size();
+            }
+
+            @Override
+            public JSONObject next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                JSONObject element = pages.get(page).optJSONObject(indexInPage);
+                indexInPage++;
+                if (indexInPage == pages.get(page).length()) {
+                    page++;
+                    indexInPage = 0;
+                }
+                return element;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Returns all the elements in a single JSONArray. That's the data of the only page if there's
+     * only one, otherwise a copy of all of them.
+     */
+    public JSONArray toJSONArray() {
+        if (pages.size() == 1) {
+            return pages.get(0);
+        }
+        JSONArray data = new JSONArray();
+        for (JSONArray page : pages) {
+            for (int i = 0; i < page.length(); i++) {
+                data.put(page.opt(i));
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Checks whether the other result has the same data, page by page
+     */
+    boolean hasSameContent(GraphPagedResult other) {
+        if (pages.size() != other.pages.size()) {
+            return false;
+        }
+        for (int i = 0; i < pages.size(); i++) {
+            if (!pages.get(i).toString().equals(other.pages.get(i).toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
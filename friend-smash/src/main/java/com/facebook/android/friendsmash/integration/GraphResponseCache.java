@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.facebook.android.friendsmash.integration;
+
+import com.facebook.GraphResponse;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * In memory cache of the responses to Graph API calls made with GraphAPICall, with all of their
+ * pages. Each response is kept with the time it was received and its ETag, so GraphAPICall can
+ * tell whether it's still fresh, and whether a newer response is actually any different.
+ * Invalidating a path bumps the cache's generation, and a response to a call made before that
+ * isn't cached, as it may have been read before the write that made the path out of date.
+ * See https://developers.facebook.com/docs/graph-api/using-graph-api/ for details about ETags.
+ */
+class GraphResponseCache {
+
+    /**
+     * A cached response and what's needed to tell whether it's still good to use
+     */
+    static class Entry {
+        final String path;
+        final GraphResponse response;
+        final String etag;
+        final long time;
+
+        Entry(String path, GraphResponse response, String etag, long time) {
+            this.path = path;
+            this.response = response;
+            this.etag = etag;
+            this.time = time;
+        }
+
+        /**
+         * Checks whether the other response has the same content. ETags are compared if both
+         * responses have one, otherwise the JSON itself, of the first page and the data of all.
+         */
+        boolean hasSameContent(Entry other) {
+            if (etag != null && other.etag != null) {
+                return etag.equals(other.etag);
+            }
+            return String.valueOf(response.getJSONObject()).equals(String.valueOf(other.response.getJSONObject()))
+                    && GraphAPICall.getPagedDataFromResponse(response).hasSameContent(
+                            GraphAPICall.getPagedDataFromResponse(other.response));
+        }
+    }
+
+    private final HashMap<String, Entry> entries = new HashMap<String, Entry>();
+
+    /**
+     * Bumped by every invalidation, and the generation each invalidated path was last
+     * invalidated in
+     */
+    private long generation = 0;
+    private final HashMap<String, Long> invalidatedGenerations = new HashMap<String, Long>();
+
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Returns the current generation, to be passed to put() with the response of a call made now
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches the response of a call made in the given generation, unless its path has been
+     * invalidated since
+     */
+    synchronized void put(String key, Entry entry, long callGeneration) {
+        for (Map.Entry<String, Long> invalidated : invalidatedGenerations.entrySet()) {
+            if (invalidated.getValue() > callGeneration && matches(entry.path, invalidated.getKey())) {
+                return;
+            }
+        }
+        entries.put(key, entry);
+    }
+
+    /**
+     * Removes the responses to calls to the given path, or to any path ending with it, e.g.
+     * "scores" removes both me/scores and {app-id}/scores.
+     */
+    synchronized void invalidate(String path) {
+        generation++;
+        invalidatedGenerations.put(path, generation);
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (matches(iterator.next().path, path)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean matches(String entryPath, String invalidatedPath) {
+        return entryPath.equals(invalidatedPath) || entryPath.endsWith("/" + invalidatedPath);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+}
@@ -58,7 +58,8 @@ public class Sharing {
                     Log.e(FriendSmashApplication.TAG, "Posting Score to Facebook failed: " + error.getErrorMessage());
                 }
             });
-            publishScoreCall.executeAsync();
+            // Nobody waits for this, so it can go together with whatever else is being called
+            publishScoreCall.executeBatchedAsync();
         }
     }
 
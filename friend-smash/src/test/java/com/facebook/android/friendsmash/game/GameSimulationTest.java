@@ -0,0 +1,244 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash.game;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Plays GameSimulation frame by frame on a ManualClock with fixed seeds, smashing sprites
+ *  directly, to check the rules: scoring, lives, bombs and wrong smashes
+ */
+public class GameSimulationTest {
+
+	private static final long SEED = 42;
+	private static final int ICON_WIDTH = 100;
+	private static final int SCREEN_WIDTH = 480;
+	private static final int SCREEN_HEIGHT = 800;
+	private static final int NUM_CELEBS = 10;
+	private static final int NUM_BOMBS = 3;
+
+	private HeadlessGame.ManualClock clock;
+	private GameSimulation simulation;
+
+	@Before
+	public void setUp() {
+		clock = new HeadlessGame.ManualClock(0);
+		simulation = newSimulation(NUM_BOMBS);
+	}
+
+	private GameSimulation newSimulation(int numBombs) {
+		GameSimulation simulation = new GameSimulation(SEED, clock, NUM_CELEBS, numBombs);
+		simulation.setPlayfield(ICON_WIDTH, SCREEN_WIDTH, SCREEN_HEIGHT);
+		simulation.setTarget(false, 0);
+		return simulation;
+	}
+
+	/**
+	 *  Advances the game frame by frame up to the given time, or until it's over
+	 */
+	private void advanceTo(long time) {
+		while (clock.now() < time && !simulation.isGameOver()) {
+			long now = Math.min(clock.now() + HeadlessGame.FRAME_INTERVAL, time);
+			clock.setTime(now);
+			simulation.advance(now);
+		}
+	}
+
+	/**
+	 *  Same as above, smashing every image that should be smashed, coins included, on every frame.
+	 *  Returns the number of points that should have been scored
+	 */
+	private int advanceSmashingTargetsTo(long time) {
+		int points = 0;
+		while (clock.now() < time && !simulation.isGameOver()) {
+			advanceTo(clock.now() + HeadlessGame.FRAME_INTERVAL);
+			for (int i = simulation.getSprites().size() - 1; i >= 0; i--) {
+				Sprite sprite = simulation.getSprites().get(i);
+				if (sprite.isVisible() && sprite.shouldSmash()) {
+					if (!sprite.isCoin()) {
+						points += 1 + sprite.getExtraPoints();
+					}
+					simulation.smash(sprite);
+				}
+			}
+		}
+		return points;
+	}
+
+	/**
+	 *  Plays on, smashing the targets, until an image that shouldn't be smashed is in flight
+	 */
+	private Sprite advanceToWrongImage() {
+		while (!simulation.isGameOver()) {
+			advanceSmashingTargetsTo(clock.now() + HeadlessGame.FRAME_INTERVAL);
+			for (Sprite sprite : simulation.getSprites()) {
+				if (sprite.isVisible() && !sprite.shouldSmash()) {
+					return sprite;
+				}
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void firstImageIsTheTarget() {
+		simulation.startFiring();
+
+		assertEquals(1, simulation.getSprites().size());
+		Sprite sprite = simulation.getSprites().get(0);
+		assertTrue(sprite.shouldSmash());
+		assertFalse(sprite.isCoin());
+		assertEquals(0, sprite.getCelebIndex());
+	}
+
+	@Test
+	public void smashingTargetsScores() {
+		simulation.startFiring();
+		int points = advanceSmashingTargetsTo(10000);
+
+		assertTrue(points > 0);
+		assertEquals(points, simulation.getScore());
+		assertEquals(GameSimulation.NUM_LIVES, simulation.getLives());
+		assertFalse(simulation.isGameOver());
+	}
+
+	@Test
+	public void missedTargetsCostLivesUntilGameOver() {
+		simulation.startFiring();
+		while (simulation.getLives() == GameSimulation.NUM_LIVES) {
+			advanceTo(clock.now() + HeadlessGame.FRAME_INTERVAL);
+		}
+		assertEquals(GameSimulation.NUM_LIVES - 1, simulation.getLives());
+		assertFalse(simulation.isGameOver());
+
+		advanceTo(60000);
+		assertTrue(simulation.isGameOver());
+		assertEquals(0, simulation.getLives());
+		assertEquals(0, simulation.getScore());
+	}
+
+	@Test
+	public void bombClearsTheScreen() {
+		simulation.startFiring();
+		advanceTo(2000);
+		assertFalse(simulation.getSprites().isEmpty());
+		int lives = simulation.getLives();
+
+		simulation.detonateBomb();
+		assertEquals(NUM_BOMBS - 1, simulation.getBombsRemaining());
+		assertEquals(1, simulation.getBombsUsed());
+		for (Sprite sprite : simulation.getSprites()) {
+			assertFalse(sprite.isVisible());
+		}
+
+		// Hidden sprites are reclaimed on the next frame, and can't cost a life
+		advanceTo(clock.now() + HeadlessGame.FRAME_INTERVAL);
+		for (Sprite sprite : simulation.getSprites()) {
+			assertEquals(clock.now(), sprite.getSpawnTime());
+		}
+		assertEquals(lives, simulation.getLives());
+		assertEquals(0, simulation.getScore());
+	}
+
+	@Test
+	public void bombWithoutBombsLeftDoesNothing() {
+		simulation = newSimulation(0);
+		simulation.startFiring();
+		advanceTo(1000);
+
+		simulation.detonateBomb();
+		assertEquals(0, simulation.getBombsUsed());
+		assertTrue(simulation.getSprites().get(0).isVisible());
+	}
+
+	@Test
+	public void wrongSmashEndsGameOnceScaledUp() {
+		simulation.startFiring();
+		Sprite wrongImage = advanceToWrongImage();
+		assertNotNull(wrongImage);
+		int score = simulation.getScore();
+		long smashTime = clock.now();
+
+		simulation.smash(wrongImage);
+		assertTrue(wrongImage.isWrongImageSmashed());
+
+		advanceTo(smashTime + SpriteMotion.SCALE_UP_DURATION - 1);
+		assertFalse(simulation.isGameOver());
+		assertEquals(1, simulation.getSprites().size());
+
+		advanceTo(smashTime + SpriteMotion.SCALE_UP_DURATION);
+		assertTrue(simulation.isGameOver());
+		assertEquals(0, simulation.getLives());
+		assertEquals(score, simulation.getScore());
+	}
+
+	@Test
+	public void smashingWrongImageAgainDoesNotDelayGameOver() {
+		simulation.startFiring();
+		Sprite wrongImage = advanceToWrongImage();
+		long smashTime = clock.now();
+		simulation.smash(wrongImage);
+
+		for (int i = 1; i <= 4; i++) {
+			advanceTo(smashTime + i * 200);
+			simulation.smash(wrongImage);
+		}
+
+		advanceTo(smashTime + SpriteMotion.SCALE_UP_DURATION);
+		assertTrue(simulation.isGameOver());
+	}
+
+	@Test
+	public void bombDuringScaleUpStillEndsGame() {
+		simulation.startFiring();
+		Sprite wrongImage = advanceToWrongImage();
+		long smashTime = clock.now();
+		simulation.smash(wrongImage);
+
+		advanceTo(smashTime + 300);
+		simulation.detonateBomb();
+		assertEquals(NUM_BOMBS, simulation.getBombsRemaining());
+		assertTrue(wrongImage.isVisible());
+
+		advanceTo(smashTime + SpriteMotion.SCALE_UP_DURATION);
+		assertTrue(simulation.isGameOver());
+		assertEquals(0, simulation.getLives());
+	}
+
+	@Test
+	public void smashingAfterWrongSmashDoesNotScore() {
+		simulation.startFiring();
+		Sprite wrongImage = advanceToWrongImage();
+		int score = simulation.getScore();
+		simulation.smash(wrongImage);
+
+		for (Sprite sprite : simulation.getSprites()) {
+			simulation.smash(sprite);
+		}
+		assertEquals(score, simulation.getScore());
+	}
+}
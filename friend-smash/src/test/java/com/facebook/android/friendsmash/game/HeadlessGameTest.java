@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash.game;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ *  Checks that HeadlessGame plays whole games reproducibly and, when asked to, that it plays them
+ *  fast enough
+ */
+public class HeadlessGameTest {
+
+	private static final long MAX_GAME_TIME = 10 * 60 * 1000;
+
+	private static final String BENCHMARK_ENV = "FRIENDSMASH_BENCHMARK";
+	private static final long BENCHMARK_TIME_NANOS = 2000000000L;
+	// A development machine manages several thousand, so this only catches big regressions
+	private static final int MIN_GAMES_PER_SECOND = 500;
+
+	private final HeadlessGame headlessGame = new HeadlessGame(100, 480, 800, 10, 3);
+
+	private final HeadlessGame.Player player = new HeadlessGame.Player(300, 0.9f, 0.05f, 4);
+
+	@Test
+	public void sameSeedPlaysSameGame() {
+		for (long seed = 0; seed < 20; seed++) {
+			HeadlessGame.Result first = headlessGame.play(seed, player, MAX_GAME_TIME);
+			HeadlessGame.Result second = headlessGame.play(seed, player, MAX_GAME_TIME);
+			assertEquals(first.toString(), second.toString());
+		}
+	}
+
+	@Test
+	public void everyGameEnds() {
+		for (long seed = 0; seed < 200; seed++) {
+			HeadlessGame.Result result = headlessGame.play(seed, player, MAX_GAME_TIME);
+			assertTrue("seed " + seed + ": " + result, result.gameOver);
+		}
+	}
+
+	@Test
+	public void playerWhoNeverSmashesScoresNothing() {
+		HeadlessGame.Player idlePlayer = new HeadlessGame.Player(300, 0f, 0f, 0);
+		HeadlessGame.Result result = headlessGame.play(1, idlePlayer, MAX_GAME_TIME);
+		assertTrue(result.gameOver);
+		assertEquals(0, result.score);
+		assertEquals(0, result.bombsUsed);
+	}
+
+	/**
+	 *  Plays games for a couple of seconds and checks the simulation still manages at least
+	 *  MIN_GAMES_PER_SECOND.  Only run when the FRIENDSMASH_BENCHMARK environment variable is set,
+	 *  as it's slow and the numbers depend on the machine
+	 */
+	@Test
+	public void benchmarkGamesPerSecond() {
+		assumeTrue(System.getenv(BENCHMARK_ENV) != null);
+
+		// Warm up the JIT first
+		for (long seed = 0; seed < 50; seed++) {
+			headlessGame.play(seed, player, MAX_GAME_TIME);
+		}
+
+		int games = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			headlessGame.play(games, player, MAX_GAME_TIME);
+			games++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < BENCHMARK_TIME_NANOS);
+
+		double gamesPerSecond = games / (elapsed / 1e9);
+		assertTrue(String.format("%.1f games/s", gamesPerSecond), gamesPerSecond >= MIN_GAMES_PER_SECOND);
+	}
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.zip.GZIPOutputStream;
+
+import javax.net.ssl.SSLSocketFactory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  Points UrlConnectionTransport at a server on the loopback interface, which redirects the way
+ *  the Graph API redirects picture requests to the CDN, gzips, and fails
+ */
+public class UrlConnectionTransportTest {
+
+	private static final byte[] PICTURE = "not really a picture".getBytes();
+	private static final byte[] NOT_FOUND = "no such picture".getBytes();
+
+	private HttpServer server;
+	private String serverUrl;
+	private HttpTransport transport;
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0), 0);
+		server.createContext("/4/picture", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.getResponseHeaders().set("Location", serverUrl + "cdn/4.jpg");
+				exchange.sendResponseHeaders(HttpURLConnection.HTTP_MOVED_TEMP, -1);
+				exchange.close();
+			}
+		});
+		server.createContext("/cdn/4.jpg", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				respond(exchange, HttpURLConnection.HTTP_OK, PICTURE);
+			}
+		});
+		server.createContext("/cdn/gzipped.jpg", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+				GZIPOutputStream outputStream = new GZIPOutputStream(gzipped);
+				outputStream.write(PICTURE);
+				outputStream.close();
+				exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+				respond(exchange, HttpURLConnection.HTTP_OK, gzipped.toByteArray());
+			}
+		});
+		server.createContext("/cdn/missing.jpg", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				respond(exchange, HttpURLConnection.HTTP_NOT_FOUND, NOT_FOUND);
+			}
+		});
+		server.start();
+		serverUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+		transport = new UrlConnectionTransport((SSLSocketFactory) SSLSocketFactory.getDefault());
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	private static void respond(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
+		exchange.sendResponseHeaders(statusCode, body.length);
+		OutputStream outputStream = exchange.getResponseBody();
+		outputStream.write(body);
+		outputStream.close();
+	}
+
+	private static byte[] readFully(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = inputStream.read(buffer)) != -1) {
+			outputStream.write(buffer, 0, read);
+		}
+		return outputStream.toByteArray();
+	}
+
+	@Test
+	public void redirectIsFollowedToWhereThePictureIs() throws IOException {
+		HttpTransport.Response response = transport.get(new URL(serverUrl + "4/picture?width=100&height=100"));
+		try {
+			assertEquals(HttpURLConnection.HTTP_OK, response.getStatusCode());
+			assertEquals(new URL(serverUrl + "cdn/4.jpg"), response.getUrl());
+			assertEquals(PICTURE.length, response.getContentLength());
+			assertArrayEquals(PICTURE, readFully(response.getBody()));
+		} finally {
+			response.close();
+		}
+	}
+
+	@Test
+	public void gzippedBodyIsDecompressed() throws IOException {
+		HttpTransport.Response response = transport.get(new URL(serverUrl + "cdn/gzipped.jpg"));
+		try {
+			assertEquals(HttpURLConnection.HTTP_OK, response.getStatusCode());
+			// The length on the wire says nothing of the decompressed length
+			assertEquals(-1, response.getContentLength());
+			assertArrayEquals(PICTURE, readFully(response.getBody()));
+		} finally {
+			response.close();
+		}
+	}
+
+	@Test
+	public void errorBodyIsReadFromTheErrorStream() throws IOException {
+		HttpTransport.Response response = transport.get(new URL(serverUrl + "cdn/missing.jpg"));
+		try {
+			assertEquals(HttpURLConnection.HTTP_NOT_FOUND, response.getStatusCode());
+			assertArrayEquals(NOT_FOUND, readFully(response.getBody()));
+		} finally {
+			response.close();
+		}
+	}
+
+	@Test
+	public void unreadBodiesAreDrainedOnClose() throws IOException {
+		for (int i = 0; i < 3; i++) {
+			transport.get(new URL(serverUrl + "cdn/missing.jpg")).close();
+			transport.get(new URL(serverUrl + "cdn/gzipped.jpg")).close();
+		}
+		HttpTransport.Response response = transport.get(new URL(serverUrl + "cdn/4.jpg"));
+		try {
+			assertArrayEquals(PICTURE, readFully(response.getBody()));
+		} finally {
+			response.close();
+		}
+	}
+}
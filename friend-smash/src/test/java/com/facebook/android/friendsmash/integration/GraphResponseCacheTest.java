@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2014-present, Facebook, Inc. All rights reserved.
+ *
+ * You are hereby granted a non-exclusive, worldwide, royalty-free license to use,
+ * copy, modify, and distribute this software in source code or binary form for use
+ * in connection with the web services and APIs provided by Facebook.
+ *
+ * As with any software that integrates with the Facebook platform, your use of
+ * this software is subject to the Facebook Developer Principles and Policies
+ * [http://developers.facebook.com/policy/]. This copyright notice shall be
+ * included in all copies or substantial portions of the software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.facebook.android.friendsmash.integration;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that a response read before a write doesn't make it back into the cache once the write
+ * has invalidated its path
+ */
+public class GraphResponseCacheTest {
+
+    private static final String KEY = "1 GET 2/scores fields=user,score";
+
+    private final GraphResponseCache cache = new GraphResponseCache();
+
+    private static GraphResponseCache.Entry newEntry(String path) {
+        return new GraphResponseCache.Entry(path, null, null, System.currentTimeMillis());
+    }
+
+    @Test
+    public void responseOfCallMadeBeforeInvalidationIsNotCached() {
+        long generation = cache.getGeneration();
+        cache.invalidate("scores");
+        cache.put(KEY, newEntry("2/scores"), generation);
+        assertNull(cache.get(KEY));
+    }
+
+    @Test
+    public void responseOfCallMadeAfterInvalidationIsCached() {
+        cache.invalidate("scores");
+        long generation = cache.getGeneration();
+        cache.put(KEY, newEntry("2/scores"), generation);
+        assertNotNull(cache.get(KEY));
+    }
+
+    @Test
+    public void invalidationOfOtherPathsDoesNotStopCaching() {
+        long generation = cache.getGeneration();
+        cache.invalidate("1234567890");
+        cache.put(KEY, newEntry("2/scores"), generation);
+        assertNotNull(cache.get(KEY));
+    }
+
+    @Test
+    public void invalidationRemovesCachedResponses() {
+        cache.put(KEY, newEntry("2/scores"), cache.getGeneration());
+        cache.invalidate("scores");
+        assertNull(cache.get(KEY));
+    }
+}